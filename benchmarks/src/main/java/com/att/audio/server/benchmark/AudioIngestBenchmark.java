@@ -0,0 +1,237 @@
+package com.att.audio.server.benchmark;
+
+import com.att.audio.server.archive.SegmentStore;
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.HistoryConfig;
+import com.att.audio.server.config.JournalConfig;
+import com.att.audio.server.config.LatestCacheConfig;
+import com.att.audio.server.config.PushConfig;
+import com.att.audio.server.config.SegmentConfig;
+import com.att.audio.server.config.TranscriptionConfig;
+import com.att.audio.server.config.VadConfig;
+import com.att.audio.server.pipeline.EnergyZeroCrossingVad;
+import com.att.audio.server.pipeline.LatestTranscriptionCache;
+import com.att.audio.server.pipeline.SegmentArchiver;
+import com.att.audio.server.pipeline.SilenceSegmenter;
+import com.att.audio.server.pipeline.TranscriptPublisher;
+import com.att.audio.server.pipeline.TranscriptionExecutor;
+import com.att.audio.server.pipeline.TranscriptionHistory;
+import com.att.audio.server.pipeline.TranscriptionJournal;
+import com.att.audio.server.pipeline.TranscriptionResultWriter;
+import com.att.audio.server.service.SpeechToTextService;
+import com.att.audio.server.service.TranscriptionProgress;
+import com.att.audio.server.service.impl.AudioServiceImpl;
+import com.att.audio.server.session.AudioSegment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * AudioServiceImpl.handleAudioData：每次操作为一次 100ms 的音频上报（3200 字节），
+ * 包括读入池化字节块、VAD 分析、停顿切分，以及分段结束时记入转写日志并提交转写
+ * 转写引擎立即返回空结果，Redis 写入为空操作，测得的是接收线程和本进程流水线的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AudioIngestBenchmark {
+    private static final int FRAME_BYTES = 3200;
+    private static final String SHARED_SESSION = "bench";
+
+    @Param({"true", "false"})
+    public boolean vad;
+
+    @Param({"true", "false"})
+    public boolean journal;
+
+    private Path savePath;
+    private byte[] pcm;
+    private AudioServiceImpl service;
+    private TranscriptionExecutor executor;
+    private TranscriptionResultWriter resultWriter;
+    private TranscriptPublisher publisher;
+    private SegmentArchiver archiver;
+    private SegmentStore segmentStore;
+    private TranscriptionJournal transcriptionJournal;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        savePath = Files.createTempDirectory("ingest-bench");
+        pcm = Samples.speechPcm(16000 * 10);
+
+        AudioConfig audioConfig = new AudioConfig();
+        audioConfig.setSavePath(savePath.toString());
+        audioConfig.setSampleRate(16000);
+        audioConfig.setBitsPerSample(16);
+        audioConfig.setChannels(1);
+        audioConfig.setChunkSize(100);
+        // 归档由单独线程写磁盘，不在接收路径上，这里关闭以免磁盘抖动影响结果
+        audioConfig.setArchiveEnabled(false);
+        VadConfig vadConfig = new VadConfig();
+        vadConfig.setEnabled(vad);
+        JournalConfig journalConfig = new JournalConfig();
+        journalConfig.setEnabled(journal);
+        TranscriptionConfig transcriptionConfig = new TranscriptionConfig();
+        LatestCacheConfig latestCacheConfig = new LatestCacheConfig();
+        latestCacheConfig.setEnabled(false);
+
+        StringRedisTemplate redisTemplate = new NoopRedisTemplate();
+        executor = new TranscriptionExecutor(transcriptionConfig);
+        resultWriter = new TranscriptionResultWriter(transcriptionConfig, redisTemplate,
+                new TranscriptionHistory(new HistoryConfig(), redisTemplate),
+                new LatestTranscriptionCache(latestCacheConfig, redisTemplate, null));
+        publisher = new TranscriptPublisher(new PushConfig());
+        segmentStore = new SegmentStore(audioConfig);
+        archiver = new SegmentArchiver(audioConfig, segmentStore);
+        transcriptionJournal = new TranscriptionJournal(audioConfig, journalConfig);
+        service = new AudioServiceImpl(audioConfig, new ImmediateSpeechToText(), executor, archiver,
+                new EnergyZeroCrossingVad(audioConfig, vadConfig), vadConfig,
+                new SilenceSegmenter(audioConfig, new SegmentConfig()), resultWriter, publisher,
+                segmentStore, transcriptionJournal);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        resultWriter.shutdown();
+        publisher.shutdown();
+        archiver.shutdown();
+        transcriptionJournal.shutdown();
+        segmentStore.close();
+        try (Stream<Path> paths = Files.walk(savePath)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long singleProducer(Producer producer) throws IOException {
+        return service.handleAudioData(producer.sessionId, producer.next(pcm));
+    }
+
+    /**
+     * 多个设备各自上报，只在各自的会话上加锁
+     */
+    @Benchmark
+    @Threads(4)
+    public long multiProducerPerSession(Producer producer) throws IOException {
+        return service.handleAudioData(producer.sessionId, producer.next(pcm));
+    }
+
+    /**
+     * 多个连接向同一会话上报，在会话锁上竞争
+     */
+    @Benchmark
+    @Threads(4)
+    public long multiProducerSharedSession(Producer producer) throws IOException {
+        return service.handleAudioData(SHARED_SESSION, producer.next(pcm));
+    }
+
+    /**
+     * 每个生产者线程一个会话，依次上报样本音频中的各个 100ms 帧
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+        private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+        String sessionId;
+        private int offset;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            sessionId = "bench-" + THREAD_INDEX.incrementAndGet();
+        }
+
+        ByteArrayInputStream next(byte[] pcm) {
+            ByteArrayInputStream frame = new ByteArrayInputStream(pcm, offset, FRAME_BYTES);
+            offset += FRAME_BYTES;
+            if (offset + FRAME_BYTES > pcm.length) {
+                offset = 0;
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * 立即以空文本完成的转写引擎
+     */
+    private static class ImmediateSpeechToText implements SpeechToTextService {
+        private static final CompletableFuture<String> EMPTY = CompletableFuture.completedFuture("");
+
+        @Override
+        public String convertToText(File audioFile) {
+            return "";
+        }
+
+        @Override
+        public CompletableFuture<String> convertToTextAsync(File audioFile) {
+            return EMPTY;
+        }
+
+        @Override
+        public CompletableFuture<String> convertToTextAsync(AudioSegment segment, TranscriptionProgress progress) {
+            return EMPTY;
+        }
+
+        @Override
+        public CompletableFuture<String> resumeFromUpload(String engine, String audioUrl, long audioDurationMs,
+                                                          TranscriptionProgress progress) {
+            return EMPTY;
+        }
+
+        @Override
+        public CompletableFuture<String> resumeTask(String engine, String taskId, long audioDurationMs) {
+            return EMPTY;
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getLatestTranscription() {
+            return "";
+        }
+    }
+
+    /**
+     * 不连接 Redis，管道写入直接返回
+     */
+    private static class NoopRedisTemplate extends StringRedisTemplate {
+        @Override
+        public List<Object> executePipelined(SessionCallback<?> session) {
+            return Collections.emptyList();
+        }
+    }
+}
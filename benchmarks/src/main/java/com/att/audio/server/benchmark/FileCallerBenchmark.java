@@ -0,0 +1,121 @@
+package com.att.audio.server.benchmark;
+
+import com.att.audio.server.iflytek.UploadBodies;
+import com.att.audio.server.iflytek.XfyunSpeedTranscription;
+import com.att.audio.server.request.FileReq;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.ChunkPool;
+import com.att.audio.server.util.FileCaller;
+import com.att.audio.server.util.FileResp;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.Okio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileCaller 构造请求：签名、组装 multipart/JSON 请求体、经 OkHttp 拦截器链写出请求体并解析响应
+ * 由应用拦截器直接返回固定响应，不经过网络，测得的是客户端一侧的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FileCallerBenchmark {
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final String UPLOAD_RESPONSE =
+            "{\"code\":0,\"sid\":\"bench\",\"data\":{\"url\":\"https://xfyun-ost.oss-cn-beijing.aliyuncs.com/bench.wav\"}}";
+    private static final String INIT_RESPONSE =
+            "{\"code\":0,\"sid\":\"bench\",\"data\":{\"upload_id\":\"b1e6c0c5a0b84d5e8d3e2f4a6b7c8d9e\"}}";
+
+    private AudioSegment segment;
+    private FileCaller caller;
+    private BufferedSink blackhole;
+    private long requestId;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ChunkPool pool = new ChunkPool(8192, 1024);
+        List<ChunkPool.Chunk> chunks = new ArrayList<>();
+        // 1 秒 16kHz 单声道音频，HTTP 接口单次上传的典型大小
+        pool.readFully(new ByteArrayInputStream(Samples.speechPcm(16000)), chunks);
+        segment = new AudioSegment("audio_bench_20240118_153045_001.wav", "bench", 1,
+                System.currentTimeMillis(), 16000, 16, 1, pool);
+        for (ChunkPool.Chunk chunk : chunks) {
+            segment.append(chunk);
+        }
+        blackhole = Okio.buffer(Okio.blackhole());
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> respond(chain.request()))
+                .build();
+        caller = FileCaller.builder()
+                .ulrPrefix(XfyunSpeedTranscription.FILE_URL_PREFIX)
+                .apiKey("bench-api-key")
+                .apiSecret("bench-api-secret")
+                .client(client)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        segment.release();
+        blackhole.close();
+    }
+
+    @Benchmark
+    public FileResp<FileResp.UploadData> upload() {
+        return caller.fileUpload(FileReq.Upload.builder()
+                .appId("bench-app-id")
+                .fileName(segment.getName())
+                .requestId(String.valueOf(++requestId))
+                .body(UploadBodies.wav(segment))
+                .build());
+    }
+
+    @Benchmark
+    public FileResp<FileResp.InitData> init() {
+        return caller.fileInit(FileReq.Init.builder()
+                .appId("bench-app-id")
+                .requestId(String.valueOf(++requestId))
+                .build());
+    }
+
+    private Response respond(Request request) throws IOException {
+        // 按真实发送的方式写出请求体，计入 multipart 编码与音频拷贝
+        if (request.body() != null) {
+            request.body().writeTo(blackhole);
+            blackhole.flush();
+        }
+        String body = request.url().encodedPath().endsWith("/upload") ? UPLOAD_RESPONSE : INIT_RESPONSE;
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(body, JSON))
+                .build();
+    }
+}
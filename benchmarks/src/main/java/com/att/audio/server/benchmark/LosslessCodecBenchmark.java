@@ -0,0 +1,131 @@
+package com.att.audio.server.benchmark;
+
+import com.att.audio.server.util.LosslessCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 归档编码器：30 秒 16kHz 单声道分段的编码与解码速度，以及压缩比
+ * 每次操作处理整段音频；辅助计数 pcmMB 为每秒处理的 PCM 兆字节数（MB/s），encodedMB 为每秒的编码兆字节数，
+ * 两者之比即压缩比（编码大小 / PCM 大小），各信号的实测值记录在 README 的性能基准一节
+ * JMH 的 EVENTS 计数按迭代累加，不能直接报告比值，因此不作为辅助计数
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LosslessCodecBenchmark {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int SECONDS = 30;
+
+    /** speech：合成语音；room：低电平环境噪声；white：白噪声（几乎不可压缩） */
+    @Param({"speech", "room", "white"})
+    public String signal;
+
+    private byte[] pcm;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        int samples = SAMPLE_RATE * SECONDS;
+        switch (signal) {
+            case "speech":
+                pcm = Samples.speechPcm(samples);
+                break;
+            case "room":
+                pcm = gaussianPcm(samples, 40);
+                break;
+            case "white":
+                pcm = new byte[samples * 2];
+                new Random(42).nextBytes(pcm);
+                break;
+            default:
+                throw new IllegalArgumentException("未知的信号类型：" + signal);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pcm.length);
+        try (LosslessCodec.Encoder encoder = LosslessCodec.newEncoder(out, SAMPLE_RATE, 16, 1, pcm.length)) {
+            encoder.write(pcm, 0, pcm.length);
+        }
+        encoded = out.toByteArray();
+    }
+
+    @Benchmark
+    public long encode(Counters counters) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (LosslessCodec.Encoder encoder = LosslessCodec.newEncoder(out, SAMPLE_RATE, 16, 1, pcm.length)) {
+            encoder.write(pcm, 0, pcm.length);
+        }
+        counters.record(pcm.length, out.count);
+        return out.count;
+    }
+
+    @Benchmark
+    public long decode(Counters counters) throws IOException {
+        long decoded = LosslessCodec.decodeToWav(new ByteArrayInputStream(encoded), new CountingOutputStream());
+        counters.record(decoded, encoded.length);
+        return decoded;
+    }
+
+    private static byte[] gaussianPcm(int samples, double sigma) {
+        Random random = new Random(42);
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            short sample = (short) Math.round(random.nextGaussian() * sigma);
+            pcm[2 * i] = (byte) sample;
+            pcm[2 * i + 1] = (byte) (sample >> 8);
+        }
+        return pcm;
+    }
+
+    /**
+     * 按时间归一的吞吐计数：PCM 与编码数据各自的 MB/s
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public double pcmMB;
+        public double encodedMB;
+
+        void record(long pcmBytes, long encodedBytes) {
+            pcmMB += pcmBytes / 1e6;
+            encodedMB += encodedBytes / 1e6;
+        }
+    }
+
+    /**
+     * 只计数、不保存数据的输出流
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
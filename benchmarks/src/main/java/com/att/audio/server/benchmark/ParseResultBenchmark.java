@@ -0,0 +1,63 @@
+package com.att.audio.server.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.att.audio.server.iflytek.XfyunSpeedTranscription;
+import com.google.gson.Gson;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析讯飞查询结果中的 lattice 拼出转写文本
+ * parseResult 为私有方法，通过方法句柄调用，不改变其可见性
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseResultBenchmark {
+
+    /** 句数：3 句约为 5 秒的分段，12 句约为 30 秒的分段 */
+    @Param({"3", "12"})
+    public int sentences;
+
+    private XfyunSpeedTranscription transcription;
+    private MethodHandle parseResult;
+    private JSONObject queryData;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        transcription = XfyunSpeedTranscription.builder()
+                .appId("bench-app-id")
+                .apiKey("bench-api-key")
+                .apiSecret("bench-api-secret")
+                .client(new OkHttpClient())
+                .gson(new Gson())
+                .build();
+        parseResult = MethodHandles.privateLookupIn(XfyunSpeedTranscription.class, MethodHandles.lookup())
+                .findVirtual(XfyunSpeedTranscription.class, "parseResult",
+                        MethodType.methodType(String.class, JSONObject.class));
+        queryData = Samples.queryData(sentences, 16);
+    }
+
+    @Benchmark
+    public String parseResult() throws Throwable {
+        return (String) parseResult.invokeExact(transcription, queryData);
+    }
+}
@@ -0,0 +1,93 @@
+package com.att.audio.server.benchmark;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的样本数据，固定随机种子，各次运行输入一致
+ */
+final class Samples {
+    private static final String[] WORDS = {
+            "今天", "下午", "的", "会议", "主要", "讨论", "一下", "项目", "进度", "和", "下周",
+            "安排", "我们", "先", "看", "测试", "结果", "然后", "确定", "上线", "时间", "。", "，"
+    };
+
+    private Samples() {
+    }
+
+    /**
+     * 16 位单声道小端 PCM：约 300ms 有声（带噪声的正弦）与 200ms 静音交替，接近真实语音的能量起伏
+     * @param samples 采样点数
+     */
+    static byte[] speechPcm(int samples) {
+        Random random = new Random(42);
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            boolean voiced = (i / 1600) % 5 < 3;
+            double value = random.nextGaussian() * 60;
+            if (voiced) {
+                value += 6000 * Math.sin(2 * Math.PI * 220 * i / 16000.0)
+                        + 2500 * Math.sin(2 * Math.PI * 660 * i / 16000.0);
+            }
+            short sample = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+            pcm[2 * i] = (byte) sample;
+            pcm[2 * i + 1] = (byte) (sample >> 8);
+        }
+        return pcm;
+    }
+
+    /**
+     * 讯飞查询接口返回的 data 部分：每句一个 lattice，json_1best.st.rt[].ws[].cw[] 中带候选词、词性与时间戳
+     * @param sentences 句数
+     * @param wordsPerSentence 每句词数
+     */
+    static JSONObject queryData(int sentences, int wordsPerSentence) {
+        Random random = new Random(42);
+        JSONArray lattice = new JSONArray();
+        int frame = 0;
+        for (int s = 0; s < sentences; s++) {
+            JSONArray ws = new JSONArray();
+            int begin = frame;
+            for (int w = 0; w < wordsPerSentence; w++) {
+                JSONObject cw = new JSONObject(true);
+                cw.put("w", WORDS[random.nextInt(WORDS.length)]);
+                cw.put("wp", "n");
+                cw.put("wc", "0.00");
+                cw.put("wb", frame);
+                frame += 20 + random.nextInt(40);
+                cw.put("we", frame);
+                JSONObject word = new JSONObject(true);
+                word.put("wb", cw.get("wb"));
+                word.put("we", frame);
+                word.put("cw", new JSONArray().fluentAdd(cw));
+                ws.add(word);
+            }
+            JSONObject rt = new JSONObject(true);
+            rt.put("ws", ws);
+            JSONObject st = new JSONObject(true);
+            st.put("bg", String.valueOf(begin * 10));
+            st.put("ed", String.valueOf(frame * 10));
+            st.put("rl", "0");
+            st.put("pa", "0");
+            st.put("rt", new JSONArray().fluentAdd(rt));
+            JSONObject best = new JSONObject(true);
+            best.put("st", st);
+            JSONObject sentence = new JSONObject(true);
+            sentence.put("json_1best", best);
+            lattice.add(sentence);
+        }
+        JSONObject result = new JSONObject(true);
+        result.put("bg", 0);
+        result.put("ed", frame * 10);
+        result.put("lattice", lattice);
+        JSONObject data = new JSONObject(true);
+        data.put("task_id", "20240118153045000000000000000001");
+        data.put("task_status", "4");
+        data.put("task_type", "0");
+        data.put("force_refresh", "0");
+        data.put("result", result);
+        return data;
+    }
+}
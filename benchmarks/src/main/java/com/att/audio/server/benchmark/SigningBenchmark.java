@@ -0,0 +1,63 @@
+package com.att.audio.server.benchmark;
+
+import com.att.audio.server.util.Authentication;
+import com.att.audio.server.util.RequestSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 讯飞接口签名：原始的 {@link Authentication#auth} 与按密钥、接口缓存的 {@link RequestSigner}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SigningBenchmark {
+    private static final String API_KEY = "bench-api-key";
+    private static final String API_SECRET = "bench-api-secret";
+    private static final String URL = "https://upload-ost-api.xfyun.cn/file/upload";
+
+    private Authentication.AuthParam param;
+
+    @Setup
+    public void setup() {
+        param = Authentication.AuthParam.builder()
+                .apiKey(API_KEY)
+                .apiSecret(API_SECRET)
+                .reqUrl(URL)
+                .method(Authentication.Method.POST)
+                .build();
+    }
+
+    @Benchmark
+    public Authentication.AUthResult auth() {
+        return Authentication.auth(param);
+    }
+
+    /**
+     * 包含按密钥查找签名器，与 FileCaller 的调用方式相同
+     */
+    @Benchmark
+    public Authentication.AUthResult requestSigner() {
+        return RequestSigner.of(API_KEY, API_SECRET).sign(Authentication.Method.POST, URL);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Authentication.AUthResult requestSignerContended() {
+        return RequestSigner.of(API_KEY, API_SECRET).sign(Authentication.Method.POST, URL);
+    }
+}
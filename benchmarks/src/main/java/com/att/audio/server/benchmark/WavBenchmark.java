@@ -0,0 +1,88 @@
+package com.att.audio.server.benchmark;
+
+import com.att.audio.server.iflytek.UploadBodies;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.ChunkPool;
+import com.att.audio.server.util.WavUtil;
+import okio.BufferedSink;
+import okio.Okio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WAV 文件头生成，以及上传时分段从内存流式写成 WAV
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WavBenchmark {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int BITS_PER_SAMPLE = 16;
+    private static final int CHANNELS = 1;
+
+    /** 分段时长（秒），30 秒为默认的最长分段 */
+    @Param({"1", "30"})
+    public int seconds;
+
+    private ChunkPool pool;
+    private AudioSegment segment;
+    private BufferedSink blackhole;
+    private byte[] pcm;
+    private int dataLength;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        pcm = Samples.speechPcm(seconds * SAMPLE_RATE);
+        pool = new ChunkPool(8192, 1024);
+        List<ChunkPool.Chunk> chunks = new ArrayList<>();
+        pool.readFully(new ByteArrayInputStream(pcm), chunks);
+        segment = new AudioSegment("audio_bench_20240118_153045_001.wav", "bench", 1,
+                System.currentTimeMillis(), SAMPLE_RATE, BITS_PER_SAMPLE, CHANNELS, pool);
+        for (ChunkPool.Chunk chunk : chunks) {
+            segment.append(chunk);
+        }
+        dataLength = pcm.length;
+        blackhole = Okio.buffer(Okio.blackhole());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        segment.release();
+        blackhole.close();
+    }
+
+    @Benchmark
+    public byte[] createWavHeader() {
+        return WavUtil.createWavHeader(dataLength, SAMPLE_RATE, BITS_PER_SAMPLE, CHANNELS);
+    }
+
+    /**
+     * 上传请求体：文件头加上分段各字节块，直接写到网络缓冲
+     */
+    @Benchmark
+    public BufferedSink uploadBody() throws IOException {
+        UploadBodies.wav(segment).writeTo(blackhole);
+        blackhole.flush();
+        return blackhole;
+    }
+}
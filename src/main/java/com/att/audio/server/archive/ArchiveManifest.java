@@ -0,0 +1,112 @@
+package com.att.audio.server.archive;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 归档清单：分段序号上限和归档文件目录
+ * 启动时只读取这个小文件，不再列目录、逐个解析文件名或扫描全部索引
+ * 写入先落到临时文件再原子替换，任何时刻磁盘上都是一份完整的清单
+ */
+@Slf4j
+final class ArchiveManifest {
+    private static final int VERSION = 1;
+    private static final String FILE_PREFIX = "file.";
+
+    long sequenceCeiling;
+    int activeFile;
+    final List<FileSummary> files = new ArrayList<>();
+
+    /**
+     * 读取清单
+     * @return 清单不存在或已损坏时返回 null，由调用方回退到目录扫描
+     */
+    static ArchiveManifest load(Path path) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("读取归档清单失败，将扫描目录重建：{}", path, e);
+            return null;
+        }
+        try {
+            if (Integer.parseInt(properties.getProperty("version", "0")) != VERSION) {
+                log.warn("归档清单版本不匹配，将扫描目录重建：{}", path);
+                return null;
+            }
+            ArchiveManifest manifest = new ArchiveManifest();
+            manifest.sequenceCeiling = Long.parseLong(properties.getProperty("sequenceCeiling"));
+            manifest.activeFile = Integer.parseInt(properties.getProperty("activeFile", "0"));
+            for (String key : properties.stringPropertyNames()) {
+                if (!key.startsWith(FILE_PREFIX)) {
+                    continue;
+                }
+                String[] values = properties.getProperty(key).split(",");
+                FileSummary summary = new FileSummary();
+                summary.id = Integer.parseInt(key.substring(FILE_PREFIX.length()));
+                summary.entries = Integer.parseInt(values[0]);
+                summary.dataSize = Long.parseLong(values[1]);
+                summary.minTime = Long.parseLong(values[2]);
+                summary.maxTime = Long.parseLong(values[3]);
+                summary.maxSequence = Long.parseLong(values[4]);
+                manifest.files.add(summary);
+            }
+            manifest.files.sort((a, b) -> Integer.compare(a.id, b.id));
+            return manifest;
+        } catch (RuntimeException e) {
+            log.warn("归档清单内容无效，将扫描目录重建：{}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * 原子地写入清单：写临时文件、落盘、再重命名覆盖
+     */
+    void save(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("version", String.valueOf(VERSION));
+        properties.setProperty("sequenceCeiling", String.valueOf(sequenceCeiling));
+        properties.setProperty("activeFile", String.valueOf(activeFile));
+        for (FileSummary file : files) {
+            properties.setProperty(FILE_PREFIX + file.id, file.entries + "," + file.dataSize + ","
+                    + file.minTime + "," + file.maxTime + "," + file.maxSequence);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            properties.store(out, "audio archive manifest");
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static final class FileSummary {
+        int id;
+        int entries;
+        long dataSize;
+        long minTime;
+        long maxTime;
+        long maxSequence;
+    }
+}
@@ -0,0 +1,616 @@
+package com.att.audio.server.archive;
+
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.LosslessCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 分段音频的追加式归档
+ * 分段依次追加到滚动的大数据文件（archive-NNNNNNNN.dat），每个数据文件配一个定长条目的索引文件（.idx），
+ * 条目记录会话、序号、开始时间和数据位置。读取时对索引和数据做内存映射，过期清理按整个文件删除
+ * 只有归档线程写入，读取可在任意线程进行
+ * 分段序号和文件目录保存在清单中，启动时间与归档规模无关；清单缺失时才扫描目录重建
+ */
+@Slf4j
+@Component
+public class SegmentStore {
+    static final String DATA_SUFFIX = ".dat";
+    static final String INDEX_SUFFIX = ".idx";
+    private static final String FILE_PREFIX = "archive-";
+    private static final Pattern DATA_FILE_PATTERN = Pattern.compile("archive-(\\d{8})\\.dat");
+    private static final Pattern SEGMENT_NAME_PATTERN =
+            Pattern.compile("audio_([A-Za-z0-9-]+)_(\\d{8}_\\d{6})_(\\d{3,})\\.(?:wav|lpc)");
+    // 文件名中的时间为UTC，不受夏令时切换影响
+    private static final DateTimeFormatter NAME_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss").withZone(ZoneOffset.UTC);
+    private static final String MANIFEST_NAME = "manifest.properties";
+    // 每次在清单中预留的序号数量；用到一半时由后台线程预留下一批，分配序号的线程不写盘
+    static final long SEQUENCE_BLOCK = 1000;
+
+    // 索引条目：序号(8) | 开始时间(8) | 偏移(8) | 长度(4) | 格式(1) | 会话ID长度(1) | 会话ID(64) | 填充(2)
+    static final int ENTRY_SIZE = 96;
+    private static final int SESSION_OFFSET = 30;
+    private static final int MAX_SESSION_BYTES = 64;
+    static final byte FORMAT_WAV = 0;
+    static final byte FORMAT_LPC = 1;
+
+    private final AudioConfig audioConfig;
+    private final Path directory;
+    private final List<ArchiveFile> files = new CopyOnWriteArrayList<>();
+    private final ByteBuffer entryBuffer = ByteBuffer.allocate(ENTRY_SIZE).order(ByteOrder.BIG_ENDIAN);
+    // 后台线程写清单时读取
+    private volatile ArchiveFile active;
+    private FileChannel activeData;
+    private FileChannel activeIndex;
+    private final Path manifestPath;
+    private final Object manifestLock = new Object();
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private volatile long sequenceCeiling;
+    private volatile long maxSequence;
+    private final AtomicBoolean reserving = new AtomicBoolean();
+    private final ScheduledExecutorService maintenance;
+
+    public SegmentStore(AudioConfig audioConfig) throws IOException {
+        this.audioConfig = audioConfig;
+        this.directory = Paths.get(audioConfig.getSavePath(), "archive");
+        this.manifestPath = directory.resolve(MANIFEST_NAME);
+        Files.createDirectories(directory);
+        ArchiveManifest manifest = ArchiveManifest.load(manifestPath);
+        if (manifest != null) {
+            openFromManifest(manifest);
+        } else {
+            scan();
+        }
+        // 预留第一批序号并记下当前目录
+        sequenceCeiling = nextSequence.get();
+        allocateBlock(nextSequence.get());
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audio-archive-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleRetention(audioConfig);
+    }
+
+    /**
+     * 按保留时长定期清理，不依赖文件滚动，空闲的服务也会删除过期文件
+     */
+    private void scheduleRetention(AudioConfig audioConfig) {
+        if (audioConfig.getArchiveRetention().isZero()) {
+            return;
+        }
+        long periodMs = Math.max(1000, Math.min(audioConfig.getArchiveFileMaxAge().toMillis(),
+                audioConfig.getArchiveRetention().toMillis()) / 4);
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                enforceRetention(System.currentTimeMillis());
+            } catch (Exception e) {
+                log.error("清理过期归档失败", e);
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 生成分段文件名，文件名中的会话、开始时间（UTC，精确到秒）和序号用于定位归档中的分段
+     * @param sessionId 会话ID
+     * @param startTime 分段开始时间（毫秒）
+     * @param sequence 分段序号
+     * @return 文件名，如 audio_default_20240118_073045_001.wav
+     */
+    public static String segmentName(String sessionId, long startTime, long sequence) {
+        return String.format("audio_%s_%s_%03d.wav", sessionId,
+                NAME_TIME_FORMATTER.format(Instant.ofEpochMilli(startTime)), sequence);
+    }
+
+    private void openFromManifest(ArchiveManifest manifest) throws IOException {
+        int lastId = 0;
+        for (ArchiveManifest.FileSummary summary : manifest.files) {
+            ArchiveFile file = new ArchiveFile(summary.id, directory);
+            if (summary.id == manifest.activeFile) {
+                // 上次运行中正在写入的文件，清单里的统计可能落后，重新读取它的索引
+                recover(file);
+            } else {
+                file.entries = summary.entries;
+                file.dataSize = summary.dataSize;
+                file.minTime = summary.minTime;
+                file.maxTime = summary.maxTime;
+                file.maxSequence = summary.maxSequence;
+            }
+            files.add(file);
+            lastId = summary.id;
+        }
+        // 清单写入之后才新建的文件（例如滚动后随即崩溃），按编号依次探测，不列目录
+        for (int id = lastId + 1; ; id++) {
+            ArchiveFile file = new ArchiveFile(id, directory);
+            if (!Files.exists(file.data)) {
+                break;
+            }
+            recover(file);
+            files.add(file);
+        }
+        for (ArchiveFile file : files) {
+            maxSequence = Math.max(maxSequence, file.maxSequence);
+        }
+        nextSequence.set(Math.max(manifest.sequenceCeiling, maxSequence + 1));
+        log.info("按清单打开归档：{} 个文件，下一个序号 {}", files.size(), nextSequence.get());
+    }
+
+    /**
+     * 分配一个新的分段序号
+     * 调用方持有会话锁，因此不在这里写清单：预留的一批用到一半时交给后台线程预留下一批，
+     * 只有后台线程来不及时（用完整批）才同步写入，保证分出的序号总小于磁盘上的上限，崩溃后不会重复
+     */
+    public long nextSequence() {
+        long sequence = nextSequence.getAndIncrement();
+        long ceiling = sequenceCeiling;
+        if (sequence >= ceiling) {
+            allocateBlock(sequence);
+        } else if (sequence >= ceiling - SEQUENCE_BLOCK / 2) {
+            reserveAhead(ceiling);
+        }
+        return sequence;
+    }
+
+    private void reserveAhead(long ceiling) {
+        if (!reserving.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            maintenance.execute(() -> {
+                try {
+                    allocateBlock(ceiling);
+                } finally {
+                    reserving.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 已关闭，用完时同步写入
+            reserving.set(false);
+        }
+    }
+
+    private void allocateBlock(long sequence) {
+        synchronized (manifestLock) {
+            if (sequence < sequenceCeiling) {
+                return;
+            }
+            long ceiling = sequence + SEQUENCE_BLOCK;
+            try {
+                writeManifest(ceiling);
+                sequenceCeiling = ceiling;
+            } catch (IOException e) {
+                // 清单写入失败时仍继续分配；崩溃后按各归档文件中的最大序号继续，未归档分段的序号可能重复
+                log.error("写入归档清单失败：{}", manifestPath, e);
+                sequenceCeiling = ceiling;
+            }
+        }
+    }
+
+    private void writeManifest(long ceiling) throws IOException {
+        synchronized (manifestLock) {
+            ArchiveManifest manifest = new ArchiveManifest();
+            manifest.sequenceCeiling = ceiling;
+            ArchiveFile current = active;
+            manifest.activeFile = current == null ? 0 : current.id;
+            for (ArchiveFile file : files) {
+                ArchiveManifest.FileSummary summary = new ArchiveManifest.FileSummary();
+                summary.id = file.id;
+                summary.entries = file.entries;
+                summary.dataSize = file.dataSize;
+                summary.minTime = file.minTime;
+                summary.maxTime = file.maxTime;
+                summary.maxSequence = file.maxSequence;
+                manifest.files.add(summary);
+            }
+            manifest.save(manifestPath);
+        }
+    }
+
+    private void saveManifest() {
+        try {
+            writeManifest(sequenceCeiling);
+        } catch (IOException e) {
+            log.error("写入归档清单失败：{}", manifestPath, e);
+        }
+    }
+
+    /**
+     * 清单缺失时的回退：扫描归档目录和旧版本散落保存的分段文件
+     */
+    private void scan() throws IOException {
+        log.warn("未找到归档清单，扫描目录重建：{}", directory);
+        List<ArchiveFile> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + DATA_SUFFIX)) {
+            for (Path path : stream) {
+                Matcher matcher = DATA_FILE_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    found.add(new ArchiveFile(Integer.parseInt(matcher.group(1)), directory));
+                }
+            }
+        }
+        found.sort((a, b) -> Integer.compare(a.id, b.id));
+        for (ArchiveFile file : found) {
+            recover(file);
+            maxSequence = Math.max(maxSequence, file.maxSequence);
+        }
+        files.addAll(found);
+        long legacyMax = scanLegacyFiles();
+        nextSequence.set(Math.max(maxSequence, legacyMax) + 1);
+        log.info("归档已打开：{} 个文件，下一个序号 {}", files.size(), nextSequence.get());
+    }
+
+    private long scanLegacyFiles() throws IOException {
+        long max = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(audioConfig.getSavePath()), "audio_*")) {
+            for (Path path : stream) {
+                Matcher matcher = SEGMENT_NAME_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    max = Math.max(max, Long.parseLong(matcher.group(3)));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 读取索引并截掉崩溃时未写完整的条目
+     */
+    private void recover(ArchiveFile file) throws IOException {
+        long dataSize = Files.exists(file.data) ? Files.size(file.data) : 0;
+        long indexSize = Files.exists(file.index) ? Files.size(file.index) : 0;
+        int entries = (int) (indexSize / ENTRY_SIZE);
+        if (entries > 0) {
+            try (FileChannel channel = FileChannel.open(file.index, StandardOpenOption.READ)) {
+                MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) entries * ENTRY_SIZE);
+                int valid = 0;
+                for (int i = 0; i < entries; i++) {
+                    int base = i * ENTRY_SIZE;
+                    if (index.getLong(base + 16) + index.getInt(base + 24) > dataSize) {
+                        break;
+                    }
+                    file.include(index.getLong(base), index.getLong(base + 8));
+                    valid++;
+                }
+                entries = valid;
+            }
+        }
+        if ((long) entries * ENTRY_SIZE != indexSize) {
+            log.warn("归档索引不完整，已截断：{}，保留 {} 条", file.index, entries);
+            try (FileChannel channel = FileChannel.open(file.index, StandardOpenOption.WRITE)) {
+                channel.truncate((long) entries * ENTRY_SIZE);
+            }
+        }
+        file.entries = entries;
+        file.dataSize = dataSize;
+    }
+
+    /**
+     * 追加一个分段，只能由归档线程调用
+     * @param segment 分段
+     * @param lossless 是否以无损压缩格式保存
+     * @throws IOException 如果写入失败
+     */
+    public synchronized void append(AudioSegment segment, boolean lossless) throws IOException {
+        long now = System.currentTimeMillis();
+        rollIfNeeded(now);
+        long offset = activeData.size();
+        activeData.position(offset);
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(activeData), 64 * 1024) {
+            @Override
+            public void close() throws IOException {
+                // 只刷出缓冲，数据文件保持打开
+                flush();
+            }
+        };
+        if (lossless) {
+            try (OutputStream encoder = LosslessCodec.newEncoder(out, segment.getSampleRate(),
+                    segment.getBitsPerSample(), segment.getChannels(), segment.getDataLength())) {
+                segment.writePcm(encoder);
+            }
+        } else {
+            try (OutputStream wav = out) {
+                segment.writeWav(wav);
+            }
+        }
+        long length = activeData.position() - offset;
+
+        // 数据写完后再写索引，崩溃时索引不会指向不完整的数据
+        byte[] session = segment.getSessionId().getBytes(StandardCharsets.US_ASCII);
+        int sessionLength = Math.min(session.length, MAX_SESSION_BYTES);
+        entryBuffer.clear();
+        Arrays.fill(entryBuffer.array(), (byte) 0);
+        entryBuffer.putLong(segment.getSequence());
+        entryBuffer.putLong(segment.getStartTime());
+        entryBuffer.putLong(offset);
+        entryBuffer.putInt((int) length);
+        entryBuffer.put(lossless ? FORMAT_LPC : FORMAT_WAV);
+        entryBuffer.put((byte) sessionLength);
+        entryBuffer.put(session, 0, sessionLength);
+        entryBuffer.position(ENTRY_SIZE);
+        entryBuffer.flip();
+        while (entryBuffer.hasRemaining()) {
+            activeIndex.write(entryBuffer, (long) active.entries * ENTRY_SIZE + entryBuffer.position());
+        }
+        active.include(segment.getSequence(), segment.getStartTime());
+        active.dataSize = offset + length;
+        active.entries++;
+        maxSequence = Math.max(maxSequence, segment.getSequence());
+    }
+
+    private void rollIfNeeded(long now) throws IOException {
+        if (active != null
+                && active.dataSize < audioConfig.getArchiveFileMaxBytes()
+                && now - active.openedAt < audioConfig.getArchiveFileMaxAge().toMillis()) {
+            return;
+        }
+        closeActive();
+        int id = files.isEmpty() ? 1 : files.get(files.size() - 1).id + 1;
+        ArchiveFile file = new ArchiveFile(id, directory);
+        activeData = FileChannel.open(file.data, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        activeIndex = FileChannel.open(file.index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        file.openedAt = now;
+        active = file;
+        files.add(file);
+        log.info("新建归档文件：{}", file.data.getFileName());
+        purgeExpired(now);
+        // 已关闭文件的统计从此不再变化，文件滚动时写入清单
+        saveManifest();
+    }
+
+    private void closeActive() throws IOException {
+        if (active == null) {
+            return;
+        }
+        // 文件滚动时落盘一次，而不是每个分段都强制同步
+        activeData.force(false);
+        activeIndex.force(false);
+        activeData.close();
+        activeIndex.close();
+        active = null;
+    }
+
+    /**
+     * 正在写入的文件超过最长写入时长时先关闭，使其可以过期，再删除过期文件
+     * @param now 当前时间（毫秒）
+     * @return 删除的文件数
+     */
+    public synchronized int enforceRetention(long now) throws IOException {
+        if (active != null && now - active.openedAt >= audioConfig.getArchiveFileMaxAge().toMillis()) {
+            // 下次追加时新建文件
+            closeActive();
+            saveManifest();
+        }
+        return purgeExpired(now);
+    }
+
+    /**
+     * 按保留时长删除整个过期文件，不改写仍在保留期内的数据
+     */
+    public synchronized int purgeExpired(long now) {
+        if (audioConfig.getArchiveRetention().isZero()) {
+            return 0;
+        }
+        long expireBefore = now - audioConfig.getArchiveRetention().toMillis();
+        int deleted = 0;
+        for (ArchiveFile file : files) {
+            if (file == active || file.entries == 0 || file.maxTime >= expireBefore) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file.index);
+                Files.deleteIfExists(file.data);
+                files.remove(file);
+                deleted++;
+                log.info("已删除过期归档文件：{}", file.data.getFileName());
+            } catch (IOException e) {
+                log.error("删除过期归档文件失败：{}", file.data, e);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 以WAV格式读取分段，压缩保存的分段在读取时解码
+     * @param fileName 分段文件名（如 audio_default_20240118_153045_001.wav）
+     * @param out WAV输出，不会被关闭
+     * @return 分段不存在时返回 false
+     * @throws IOException 如果读取或解码失败
+     */
+    public boolean readWav(String fileName, OutputStream out) throws IOException {
+        Location location = find(fileName);
+        if (location == null) {
+            return false;
+        }
+        ByteBuffer payload;
+        try (FileChannel channel = FileChannel.open(location.file.data, StandardOpenOption.READ)) {
+            payload = channel.map(FileChannel.MapMode.READ_ONLY, location.offset, location.length);
+        }
+        if (location.format == FORMAT_LPC) {
+            LosslessCodec.decodeToWav(new ByteBufferInputStream(payload), out);
+        } else {
+            Channels.newChannel(out).write(payload);
+        }
+        return true;
+    }
+
+    public boolean exists(String fileName) throws IOException {
+        return find(fileName) != null;
+    }
+
+    /**
+     * 按文件名中的会话、开始时间和序号定位分段
+     * 只扫描时间范围覆盖该分段的归档文件的索引
+     */
+    private Location find(String fileName) throws IOException {
+        Matcher matcher = SEGMENT_NAME_PATTERN.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String sessionId = matcher.group(1);
+        long sequence = Long.parseLong(matcher.group(3));
+        LocalDateTime nameTime;
+        try {
+            nameTime = LocalDateTime.parse(matcher.group(2), NAME_TIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        byte[] session = sessionId.getBytes(StandardCharsets.US_ASCII);
+        Location location = find(nameTime.toInstant(ZoneOffset.UTC).toEpochMilli(), sequence, session);
+        if (location != null) {
+            return location;
+        }
+        // 旧版本按本地时间命名，夏令时回拨时同一本地时间对应两个时刻，两个都查
+        ZonedDateTime local = nameTime.atZone(ZoneId.systemDefault());
+        for (ZonedDateTime candidate : new ZonedDateTime[]{
+                local.withEarlierOffsetAtOverlap(), local.withLaterOffsetAtOverlap()}) {
+            location = find(candidate.toInstant().toEpochMilli(), sequence, session);
+            if (location != null) {
+                return location;
+            }
+        }
+        return null;
+    }
+
+    private Location find(long second, long sequence, byte[] session) throws IOException {
+        for (int f = files.size() - 1; f >= 0; f--) {
+            ArchiveFile file = files.get(f);
+            int entries = file.entries;
+            if (entries == 0 || file.maxTime < second || file.minTime >= second + 1000) {
+                continue;
+            }
+            MappedByteBuffer index;
+            try (FileChannel channel = FileChannel.open(file.index, StandardOpenOption.READ)) {
+                index = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) entries * ENTRY_SIZE);
+            }
+            for (int i = 0; i < entries; i++) {
+                int base = i * ENTRY_SIZE;
+                if (index.getLong(base) == sequence && sessionMatches(index, base, session)) {
+                    return new Location(file, index.getLong(base + 16), index.getInt(base + 24), index.get(base + 28));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean sessionMatches(ByteBuffer index, int base, byte[] session) {
+        int length = index.get(base + SESSION_OFFSET - 1) & 0xFF;
+        if (length != Math.min(session.length, MAX_SESSION_BYTES)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (index.get(base + SESSION_OFFSET + i) != session[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        maintenance.shutdownNow();
+        closeActive();
+        saveManifest();
+    }
+
+    static final class ArchiveFile {
+        final int id;
+        final Path data;
+        final Path index;
+        volatile int entries;
+        volatile long dataSize;
+        volatile long minTime = Long.MAX_VALUE;
+        volatile long maxTime = Long.MIN_VALUE;
+        volatile long maxSequence;
+        long openedAt;
+
+        ArchiveFile(int id, Path directory) {
+            this.id = id;
+            String base = String.format("%s%08d", FILE_PREFIX, id);
+            this.data = directory.resolve(base + DATA_SUFFIX);
+            this.index = directory.resolve(base + INDEX_SUFFIX);
+        }
+
+        void include(long sequence, long startTime) {
+            minTime = Math.min(minTime, startTime);
+            maxTime = Math.max(maxTime, startTime);
+            maxSequence = Math.max(maxSequence, sequence);
+        }
+    }
+
+    private static final class Location {
+        private final ArchiveFile file;
+        private final long offset;
+        private final int length;
+        private final byte format;
+
+        private Location(ArchiveFile file, long offset, int length, byte format) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.format = format;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
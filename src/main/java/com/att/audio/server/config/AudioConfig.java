@@ -4,6 +4,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import lombok.Data;
 
+import java.time.Duration;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "audio")
@@ -13,4 +15,26 @@ public class AudioConfig {
     private int sampleRate;
     private int bitsPerSample;
     private int channels;
+    private int ingestChunkBytes = 8192;
+    private int ingestPoolSize = 1024;
+    private boolean archiveEnabled = true; // 是否将分段归档到磁盘
+    private int archiveQueueCapacity = 256;
+    private ArchiveFormat archiveFormat = ArchiveFormat.LPC; // 归档格式
+    private long archiveFileMaxBytes = 256L * 1024 * 1024; // 单个归档文件达到该大小后滚动到新文件
+    private Duration archiveFileMaxAge = Duration.ofHours(1); // 单个归档文件最长写入时长，也是过期清理的粒度
+    private Duration archiveRetention = Duration.ZERO; // 归档保留时长，0表示永久保留
+    private int websocketMaxFrameBytes = 256 * 1024; // WebSocket单个二进制帧的最大字节数
+    private long websocketIdleTimeoutMs = 60_000; // WebSocket连接空闲超时
+    private int maxSessions = 10_000; // 同时保持的设备/会话数上限，超出时拒绝新设备的数据
+    private Duration sessionIdleTimeout = Duration.ofMinutes(2); // 会话超过该时长未收到数据时结束当前分段并移除会话
+
+    /**
+     * 分段归档格式
+     */
+    public enum ArchiveFormat {
+        /** 原始PCM的WAV文件 */
+        WAV,
+        /** 无损压缩（线性预测 + Rice编码），通过 GET /api/archive 还原为WAV */
+        LPC
+    }
 } 
\ No newline at end of file
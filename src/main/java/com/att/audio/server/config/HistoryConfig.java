@@ -0,0 +1,18 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.history")
+public class HistoryConfig {
+    private boolean enabled = true;
+    private Duration retention = Duration.ofDays(7); // 超过该时长的历史记录在写入时裁剪
+    private long maxEntries = 100_000; // 每个索引最多保留的记录条数
+    private int defaultPageSize = 50;
+    private int maxPageSize = 500;
+}
@@ -0,0 +1,19 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.journal")
+public class JournalConfig {
+    private boolean enabled = true;
+    private Duration flushWindow = Duration.ofMillis(50); // 日志记录聚合后一次写入并落盘的时间窗口
+    private int batchSize = 512; // 每次落盘的最大记录数
+    private int queueCapacity = 4096; // 等待写入的记录队列容量，满时提交线程等待
+    private Duration appendTimeout = Duration.ofMillis(100); // 队列已满时提交线程的最长等待，超时丢弃该条记录并计数
+    private long compactBytes = 16L * 1024 * 1024; // 日志超过该大小时只保留未完成任务重写
+}
@@ -0,0 +1,17 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.latest-cache")
+public class LatestCacheConfig {
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofSeconds(30); // 兜底过期时间，订阅消息丢失时最多陈旧这么久
+    private String channel = "audio:transcription:latest:changed"; // 跨实例失效通知的频道
+    private int maxEntries = 10_000; // 本地最多缓存的会话数，已满时新会话的结果不进入缓存
+}
@@ -0,0 +1,18 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.push")
+public class PushConfig {
+    private int maxSubscribers = 1024; // 同时订阅的连接数上限
+    private int subscriberQueueCapacity = 64; // 每个订阅者待发送消息上限，超出时丢弃最早的消息
+    private int senderThreads = 2; // 发送推送消息的线程数
+    private Duration timeout = Duration.ofMinutes(30); // 连接最长保持时间，客户端到期后自动重连
+    private Duration heartbeatInterval = Duration.ofSeconds(15); // 心跳间隔，用于及时发现断开的连接
+}
@@ -0,0 +1,53 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+/**
+ * 分段配置，绑定时自校验：时长均需大于 0，最短时长不能大于最长时长，否则启动失败
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.segment")
+public class SegmentConfig implements Validator {
+    private Mode mode = Mode.SILENCE;
+    private int minDurationMs = 3000; // 分段最短时长，短于此值不在停顿处切分
+    private int maxDurationMs = 30000; // 分段最长时长，达到后强制切分
+    private int pauseMs = 600; // 末尾连续静音达到此时长视为停顿
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return SegmentConfig.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+        SegmentConfig config = (SegmentConfig) target;
+        rejectNonPositive(errors, "minDurationMs", config.getMinDurationMs());
+        rejectNonPositive(errors, "maxDurationMs", config.getMaxDurationMs());
+        rejectNonPositive(errors, "pauseMs", config.getPauseMs());
+        if (config.getMinDurationMs() > config.getMaxDurationMs()) {
+            errors.rejectValue("minDurationMs", "range", "分段最短时长不能大于最长时长 "
+                    + config.getMaxDurationMs() + "ms");
+        }
+    }
+
+    private static void rejectNonPositive(Errors errors, String field, int value) {
+        if (value <= 0) {
+            errors.rejectValue(field, "positive", "必须大于 0");
+        }
+    }
+
+    /**
+     * 分段方式
+     */
+    public enum Mode {
+        /** 在检测到的停顿处切分，受最短/最长时长约束 */
+        SILENCE,
+        /** 按请求次数切分（audio.chunk-size），与旧版本行为一致 */
+        COUNT
+    }
+}
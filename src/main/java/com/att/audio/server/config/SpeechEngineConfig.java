@@ -0,0 +1,73 @@
+package com.att.audio.server.config;
+
+import com.att.audio.server.iflytek.TaskPollScheduler;
+import com.att.audio.server.iflytek.XfyunSpeedTranscription;
+import com.att.audio.server.service.SpeechEngine;
+import com.att.audio.server.service.impl.LocalSpeechEngine;
+import com.att.audio.server.service.impl.XfyunSpeechEngine;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 转写引擎注册：每个引擎是一个 SpeechEngine Bean，路由按 getName() 取用 audio.stt.engines 中列出的引擎
+ * 讯飞和 stub 引擎各自持有一个轮询调度器 Bean，容器关闭时停止调度线程
+ */
+@Configuration
+public class SpeechEngineConfig {
+    public static final String XFYUN = "xfyun";
+    public static final String STUB = "stub";
+    private static final int MAX_REQUESTS = 128;
+    // 挂载了本地模拟接口，或显式指定了模拟服务地址时才注册 stub 引擎
+    private static final String STUB_AVAILABLE =
+            "${audio.stt.stub.enabled:false} or '${audio.stt.stub.base-url:}' != ''";
+
+    @Bean
+    public OkHttpClient speechEngineHttpClient() {
+        // 异步转写时大量请求同时发往同一域名，放宽OkHttp默认的每域名5个并发限制
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS);
+        return new OkHttpClient.Builder().dispatcher(dispatcher).build();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public TaskPollScheduler xfyunPollScheduler(XfyunConfig xfyunConfig) {
+        return new TaskPollScheduler(XFYUN, xfyunConfig.getPollMaxQueriesPerTick());
+    }
+
+    @Bean
+    public SpeechEngine xfyunSpeechEngine(XfyunConfig xfyunConfig, OkHttpClient speechEngineHttpClient,
+                                          @Qualifier("xfyunPollScheduler") TaskPollScheduler pollScheduler) {
+        return new XfyunSpeechEngine(XFYUN, xfyunConfig, null, speechEngineHttpClient, pollScheduler,
+                XfyunSpeedTranscription.FILE_URL_PREFIX, XfyunSpeedTranscription.OPEN_URL_PREFIX);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnExpression(STUB_AVAILABLE)
+    public TaskPollScheduler stubPollScheduler(XfyunConfig xfyunConfig) {
+        return new TaskPollScheduler(STUB, xfyunConfig.getPollMaxQueriesPerTick());
+    }
+
+    @Bean
+    @ConditionalOnExpression(STUB_AVAILABLE)
+    public SpeechEngine stubSpeechEngine(XfyunConfig xfyunConfig, SpeechRouterConfig routerConfig,
+                                         OkHttpClient speechEngineHttpClient,
+                                         @Qualifier("stubPollScheduler") TaskPollScheduler pollScheduler,
+                                         @Value("${server.port:8080}") int serverPort) {
+        String baseUrl = routerConfig.getStub().getBaseUrl() != null ? routerConfig.getStub().getBaseUrl()
+                : "http://127.0.0.1:" + serverPort + "/stub/xfyun";
+        // 模拟接口不校验签名，未配置讯飞账号时使用占位值
+        return new XfyunSpeechEngine(STUB, xfyunConfig, STUB, speechEngineHttpClient, pollScheduler,
+                baseUrl + "/file", baseUrl + "/v2");
+    }
+
+    @Bean
+    public SpeechEngine localSpeechEngine(SpeechRouterConfig routerConfig) {
+        return new LocalSpeechEngine(routerConfig.getLocal().getLatency());
+    }
+}
@@ -0,0 +1,41 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.stt")
+public class SpeechRouterConfig {
+    private List<String> engines = new ArrayList<>(Collections.singletonList("xfyun")); // 可用引擎，按优先顺序：xfyun / stub / local
+    private Duration latencySlo = Duration.ofSeconds(30); // 单个分段从提交到取得结果的延迟目标
+    private int maxInFlightPerEngine = 128; // 单个引擎进行中的任务数超过该值时优先选择其他引擎
+    private Local local = new Local();
+    private Stub stub = new Stub();
+
+    /**
+     * 进程内的替身引擎，不发起任何网络调用
+     */
+    @Data
+    public static class Local {
+        private Duration latency = Duration.ofMillis(200); // 模拟的转写耗时
+    }
+
+    /**
+     * 模拟讯飞上传/创建/查询接口的本地HTTP服务
+     */
+    @Data
+    public static class Stub {
+        private boolean enabled = false; // 是否在本服务中挂载 /stub/xfyun 接口
+        private String baseUrl; // stub 引擎访问的地址，缺省为 http://127.0.0.1:${server.port}/stub/xfyun
+        private Duration latency = Duration.ofMillis(100); // 每次接口调用的响应延迟
+        private Duration processingTime = Duration.ofSeconds(1); // 任务创建后多久查询到结果
+        private double failureRate = 0.0; // 以该概率返回 503，用于验证重试、熔断和引擎切换
+    }
+}
@@ -0,0 +1,17 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.cache")
+public class TranscriptionCacheConfig {
+    private boolean enabled = true;
+    private int localSize = 1024; // 本地LRU缓存条目数
+    private Duration localTtl = Duration.ofMinutes(10); // 本地缓存有效期
+    private Duration redisTtl = Duration.ofHours(24); // Redis缓存有效期
+}
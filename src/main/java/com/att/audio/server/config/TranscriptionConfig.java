@@ -0,0 +1,32 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.transcription")
+public class TranscriptionConfig {
+    private int concurrency = 2; // 提交转写任务的线程数
+    private int maxInFlight = 256; // 同时进行中的异步转写任务上限
+    private int queueCapacity = 100; // 等待队列容量
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+    private Duration resultFlushWindow = Duration.ofMillis(20); // 转写结果聚合写入Redis的时间窗口
+    private int resultBatchSize = 256; // 每次管道写入的最大条数
+    private int resultQueueCapacity = 4096; // 等待写入的结果队列容量
+
+    /**
+     * 队列已满时的处理策略
+     */
+    public enum RejectionPolicy {
+        /** 丢弃新分段并记录错误，分段文件仍保留在磁盘上 */
+        ABORT,
+        /** 由提交线程（接收音频的请求线程）自己执行转写，对客户端形成反压 */
+        CALLER_RUNS,
+        /** 丢弃队列中最早的分段，优先转写最新音频；被丢弃的分段记为转写失败，重启后不再恢复 */
+        DISCARD_OLDEST
+    }
+}
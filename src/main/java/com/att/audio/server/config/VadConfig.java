@@ -0,0 +1,28 @@
+package com.att.audio.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "audio.vad")
+public class VadConfig {
+    private boolean enabled = true;
+    private Mode mode = Mode.DROP;
+    private int frameMs = 20; // 分析帧长
+    private int rmsThreshold = 400; // 语音帧的最低均方根幅度（满幅32767）
+    private double noiseRatio = 2.5; // 语音帧能量需高于噪声基底的倍数
+    private double maxZeroCrossingRate = 0.4; // 过零率高于此值视为噪声
+    private int minSpeechMs = 200; // 分段内语音累计时长达到此值才视为有语音
+
+    /**
+     * 无语音分段的处理方式
+     */
+    public enum Mode {
+        /** 丢弃：不归档也不转写 */
+        DROP,
+        /** 标记：照常归档，不转写，转写结果记为空 */
+        MARK
+    }
+}
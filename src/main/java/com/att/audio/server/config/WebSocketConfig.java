@@ -0,0 +1,37 @@
+package com.att.audio.server.config;
+
+import com.att.audio.server.controller.AudioWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+    private final AudioConfig audioConfig;
+    private final AudioWebSocketHandler audioWebSocketHandler;
+
+    @Autowired
+    public WebSocketConfig(AudioConfig audioConfig, AudioWebSocketHandler audioWebSocketHandler) {
+        this.audioConfig = audioConfig;
+        this.audioWebSocketHandler = audioWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(audioWebSocketHandler, "/api/ws/audio")
+                .setAllowedOriginPatterns("*"); // 与HTTP接口的跨域配置保持一致
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(audioConfig.getWebsocketMaxFrameBytes());
+        container.setMaxSessionIdleTimeout(audioConfig.getWebsocketIdleTimeoutMs());
+        return container;
+    }
+}
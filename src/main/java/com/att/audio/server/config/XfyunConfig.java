@@ -16,6 +16,15 @@ public class XfyunConfig {
     private String getResultUrl = "/getResult";
     private String getProgressUrl = "/getProgress";
     private int sliceSize = 10485760; // 10M
+    private int uploadConcurrency = 4; // 分块并行上传数
+    private int sliceMaxRetries = 3; // 单个分块的最大重试次数
+    private int callMaxAttempts = 3; // 上传等幂等步骤的最大尝试次数（含首次）
+    private long retryBaseDelayMs = 200; // 首次重试的退避时间，之后逐次翻倍并加随机抖动
+    private long retryMaxDelayMs = 5000; // 退避时间上限
+    private int breakerFailureThreshold = 5; // 连续失败多少次后熔断
+    private long breakerOpenMs = 30000; // 熔断持续时间，期间调用直接失败
+    private long jobTimeoutMs = 360000; // 单个任务从上传到取得结果的截止时间，0 表示不限制
+    private int pollMaxQueriesPerTick = 20; // 每个引擎的轮询调度器每 100ms 最多发出的任务查询数
 
     // Getters and Setters
     public String getAppId() {
@@ -97,4 +106,76 @@ public class XfyunConfig {
     public void setSliceSize(int sliceSize) {
         this.sliceSize = sliceSize;
     }
-} 
\ No newline at end of file
+
+    public int getUploadConcurrency() {
+        return uploadConcurrency;
+    }
+
+    public void setUploadConcurrency(int uploadConcurrency) {
+        this.uploadConcurrency = uploadConcurrency;
+    }
+
+    public int getSliceMaxRetries() {
+        return sliceMaxRetries;
+    }
+
+    public void setSliceMaxRetries(int sliceMaxRetries) {
+        this.sliceMaxRetries = sliceMaxRetries;
+    }
+
+    public int getCallMaxAttempts() {
+        return callMaxAttempts;
+    }
+
+    public void setCallMaxAttempts(int callMaxAttempts) {
+        this.callMaxAttempts = callMaxAttempts;
+    }
+
+    public long getRetryBaseDelayMs() {
+        return retryBaseDelayMs;
+    }
+
+    public void setRetryBaseDelayMs(long retryBaseDelayMs) {
+        this.retryBaseDelayMs = retryBaseDelayMs;
+    }
+
+    public long getRetryMaxDelayMs() {
+        return retryMaxDelayMs;
+    }
+
+    public void setRetryMaxDelayMs(long retryMaxDelayMs) {
+        this.retryMaxDelayMs = retryMaxDelayMs;
+    }
+
+    public int getBreakerFailureThreshold() {
+        return breakerFailureThreshold;
+    }
+
+    public void setBreakerFailureThreshold(int breakerFailureThreshold) {
+        this.breakerFailureThreshold = breakerFailureThreshold;
+    }
+
+    public long getBreakerOpenMs() {
+        return breakerOpenMs;
+    }
+
+    public void setBreakerOpenMs(long breakerOpenMs) {
+        this.breakerOpenMs = breakerOpenMs;
+    }
+
+    public long getJobTimeoutMs() {
+        return jobTimeoutMs;
+    }
+
+    public void setJobTimeoutMs(long jobTimeoutMs) {
+        this.jobTimeoutMs = jobTimeoutMs;
+    }
+
+    public int getPollMaxQueriesPerTick() {
+        return pollMaxQueriesPerTick;
+    }
+
+    public void setPollMaxQueriesPerTick(int pollMaxQueriesPerTick) {
+        this.pollMaxQueriesPerTick = pollMaxQueriesPerTick;
+    }
+}
@@ -1,37 +1,70 @@
 package com.att.audio.server.controller;
 
+import com.att.audio.server.pipeline.LatestTranscriptionCache;
+import com.att.audio.server.pipeline.SegmentArchiver;
+import com.att.audio.server.pipeline.TranscriptPublisher;
+import com.att.audio.server.pipeline.TranscriptionHistory;
 import com.att.audio.server.service.AudioService;
-import com.att.audio.server.service.SpeechToTextService;
+import com.att.audio.server.session.AudioSession;
+import com.att.audio.server.session.SessionLimitException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.regex.Pattern;
 
 @Slf4j
 @RestController
 @RequestMapping("/api")
 public class AudioController {
+    private static final Pattern ARCHIVE_NAME_PATTERN = Pattern.compile("audio_[A-Za-z0-9_-]+\\.wav");
+    private static final MediaType AUDIO_WAV = MediaType.parseMediaType("audio/wav");
+
     private final AudioService audioService;
-    private final SpeechToTextService speechToTextService;
+    private final LatestTranscriptionCache latestCache;
+    private final TranscriptionHistory transcriptionHistory;
+    private final TranscriptPublisher transcriptPublisher;
+    private final SegmentArchiver segmentArchiver;
 
     @Autowired
-    public AudioController(AudioService audioService, SpeechToTextService speechToTextService) {
+    public AudioController(AudioService audioService, LatestTranscriptionCache latestCache,
+                           TranscriptionHistory transcriptionHistory, TranscriptPublisher transcriptPublisher,
+                           SegmentArchiver segmentArchiver) {
         this.audioService = audioService;
-        this.speechToTextService = speechToTextService;
+        this.latestCache = latestCache;
+        this.transcriptionHistory = transcriptionHistory;
+        this.transcriptPublisher = transcriptPublisher;
+        this.segmentArchiver = segmentArchiver;
     }
 
     @PostMapping
-    public ResponseEntity<String> handleAudioData(@RequestBody byte[] audioData) {
+    public ResponseEntity<?> handleAudioData(@RequestParam(value = "deviceId", required = false) String deviceId,
+                                                  HttpServletRequest request) {
         try {
-            log.info("接收到音频数据: {} 字节", audioData.length);
-            audioService.handleAudioData(audioData);
+            // 直接读取请求体输入流，避免先拷贝成完整的字节数组
+            long received = audioService.handleAudioData(deviceId, request.getInputStream());
+            log.info("接收到音频数据: {} 字节，设备：{}", received, deviceId);
             return ResponseEntity.ok("{\"status\": \"success\", \"message\": \"Data received and saved\"}");
+        } catch (SessionLimitException e) {
+            log.warn("会话数已达上限，拒绝设备：{}", deviceId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Collections.singletonMap("error", e.getMessage()));
         } catch (IOException e) {
             log.error("处理音频数据时出错", e);
             return ResponseEntity.internalServerError()
@@ -40,7 +73,55 @@ public class AudioController {
     }
 
     @GetMapping("/latest")
-    public String getLatestTranscription() {
-        return speechToTextService.getLatestTranscription();
+    public ResponseEntity<String> getLatestTranscription(@RequestParam(value = "deviceId", required = false) String deviceId,
+                                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String scope = deviceId == null ? LatestTranscriptionCache.GLOBAL_SCOPE : AudioSession.normalizeId(deviceId);
+        LatestTranscriptionCache.Latest latest;
+        try {
+            // 近端缓存命中时不访问Redis
+            latest = latestCache.get(scope);
+        } catch (Exception e) {
+            log.error("获取最新转写结果失败", e);
+            return ResponseEntity.ok("获取转写记录失败");
+        }
+        if (latest.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(latest.getEtag()).build();
+        }
+        return ResponseEntity.ok().eTag(latest.getEtag()).body(latest.getBody());
+    }
+
+    @GetMapping("/transcriptions")
+    public ResponseEntity<?> getTranscriptions(@RequestParam(value = "deviceId", required = false) String deviceId,
+                                               @RequestParam(value = "from", required = false) Long from,
+                                               @RequestParam(value = "to", required = false) Long to,
+                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                               @RequestParam(value = "limit", required = false) Integer limit) {
+        String sessionId = deviceId == null ? null : AudioSession.normalizeId(deviceId);
+        try {
+            return ResponseEntity.ok(transcriptionHistory.query(sessionId, from, to, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/transcriptions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTranscriptions(@RequestParam(value = "deviceId", required = false) String deviceId) {
+        // 推送新的转写结果，替代轮询 /api/latest
+        SseEmitter emitter = transcriptPublisher.subscribe(deviceId == null ? null : AudioSession.normalizeId(deviceId));
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    @GetMapping("/archive/{fileName:.+}")
+    public ResponseEntity<StreamingResponseBody> getArchivedSegment(@PathVariable String fileName) throws IOException {
+        // 只允许访问归档目录下的分段文件
+        if (!ARCHIVE_NAME_PATTERN.matcher(fileName).matches() || !segmentArchiver.exists(fileName)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(AUDIO_WAV)
+                .body(out -> segmentArchiver.readWav(fileName, out));
     }
-} 
\ No newline at end of file
+}
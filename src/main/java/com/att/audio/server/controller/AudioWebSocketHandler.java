@@ -0,0 +1,95 @@
+package com.att.audio.server.controller;
+
+import com.att.audio.server.service.AudioService;
+import com.att.audio.server.session.SessionLimitException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/**
+ * 通过 WebSocket 持续接收二进制音频帧
+ * 每个连接对应一个设备/会话，帧数据与 POST /api 一样进入同一分段流程，但没有逐次请求的头部解析和响应开销
+ * 连接地址：ws://host:port/api/ws/audio?deviceId=xxx
+ */
+@Slf4j
+@Component
+public class AudioWebSocketHandler extends BinaryWebSocketHandler {
+    private static final String DEVICE_ID_ATTRIBUTE = "deviceId";
+    private static final String RECEIVED_ATTRIBUTE = "receivedBytes";
+
+    private final AudioService audioService;
+
+    @Autowired
+    public AudioWebSocketHandler(AudioService audioService) {
+        this.audioService = audioService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        String deviceId = deviceId(session.getUri());
+        session.getAttributes().put(DEVICE_ID_ATTRIBUTE, deviceId);
+        session.getAttributes().put(RECEIVED_ATTRIBUTE, new long[1]);
+        log.info("WebSocket音频连接已建立，设备：{}", deviceId);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        ByteBuffer payload = message.getPayload();
+        int length = payload.remaining();
+        if (length == 0) {
+            return;
+        }
+        ByteArrayInputStream stream;
+        if (payload.hasArray()) {
+            stream = new ByteArrayInputStream(payload.array(), payload.arrayOffset() + payload.position(), length);
+        } else {
+            byte[] bytes = new byte[length];
+            payload.get(bytes);
+            stream = new ByteArrayInputStream(bytes);
+        }
+        String deviceId = (String) session.getAttributes().get(DEVICE_ID_ATTRIBUTE);
+        // 同一连接的帧由容器顺序回调，按到达顺序追加到会话
+        try {
+            audioService.handleAudioData(deviceId, stream);
+        } catch (SessionLimitException e) {
+            log.warn("会话数已达上限，关闭WebSocket连接，设备：{}", deviceId);
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
+        ((long[]) session.getAttributes().get(RECEIVED_ATTRIBUTE))[0] += length;
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        String deviceId = (String) session.getAttributes().get(DEVICE_ID_ATTRIBUTE);
+        log.error("WebSocket音频连接出错，设备：{}", deviceId, exception);
+        // 连接出错后不会再收到数据，已接收的部分作为一个分段转写
+        audioService.finishSession(deviceId);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        long[] received = (long[]) session.getAttributes().get(RECEIVED_ATTRIBUTE);
+        log.info("WebSocket音频连接已关闭，设备：{}，共接收 {} 字节，状态：{}",
+                session.getAttributes().get(DEVICE_ID_ATTRIBUTE), received == null ? 0 : received[0], status);
+        // 流结束即自然的切分点，不等到空闲超时
+        audioService.finishSession((String) session.getAttributes().get(DEVICE_ID_ATTRIBUTE));
+    }
+
+    private static String deviceId(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        return UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst(DEVICE_ID_ATTRIBUTE);
+    }
+}
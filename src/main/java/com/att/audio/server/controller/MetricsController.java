@@ -0,0 +1,75 @@
+package com.att.audio.server.controller;
+
+import com.att.audio.server.pipeline.LatestTranscriptionCache;
+import com.att.audio.server.pipeline.TranscriptPublisher;
+import com.att.audio.server.pipeline.TranscriptionCache;
+import com.att.audio.server.pipeline.TranscriptionJournal;
+import com.att.audio.server.service.AudioService;
+import com.att.audio.server.service.SpeechToTextService;
+import com.att.audio.server.pipeline.TranscriptionExecutor;
+import com.att.audio.server.pipeline.TranscriptionResultWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+    private final AudioService audioService;
+    private final TranscriptionExecutor transcriptionExecutor;
+    private final TranscriptionCache transcriptionCache;
+    private final TranscriptionResultWriter resultWriter;
+    private final TranscriptPublisher transcriptPublisher;
+    private final LatestTranscriptionCache latestCache;
+    private final TranscriptionJournal journal;
+    private final SpeechToTextService speechToTextService;
+
+    @Autowired
+    public MetricsController(AudioService audioService,
+                             TranscriptionExecutor transcriptionExecutor,
+                             TranscriptionCache transcriptionCache,
+                             TranscriptionResultWriter resultWriter,
+                             TranscriptPublisher transcriptPublisher,
+                             LatestTranscriptionCache latestCache,
+                             TranscriptionJournal journal,
+                             SpeechToTextService speechToTextService) {
+        this.audioService = audioService;
+        this.transcriptionExecutor = transcriptionExecutor;
+        this.transcriptionCache = transcriptionCache;
+        this.resultWriter = resultWriter;
+        this.transcriptPublisher = transcriptPublisher;
+        this.latestCache = latestCache;
+        this.journal = journal;
+        this.speechToTextService = speechToTextService;
+    }
+
+    @GetMapping("/transcription")
+    public Map<String, Object> getTranscriptionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(transcriptionExecutor.getStats());
+        stats.put("resultWriter", resultWriter.getStats());
+        stats.put("journal", journal.getStats());
+        stats.put("upstream", speechToTextService.getStats());
+        return stats;
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(transcriptionCache.getStats());
+        stats.put("latest", latestCache.getStats());
+        return stats;
+    }
+
+    @GetMapping("/sessions")
+    public Map<String, Map<String, Object>> getSessionStats() {
+        return audioService.getSessionStats();
+    }
+
+    @GetMapping("/push")
+    public Map<String, Object> getPushStats() {
+        return transcriptPublisher.getStats();
+    }
+}
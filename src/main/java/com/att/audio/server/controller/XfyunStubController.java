@@ -0,0 +1,171 @@
+package com.att.audio.server.controller;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.att.audio.server.config.SpeechRouterConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 模拟讯飞上传、创建任务和查询接口的本地服务，供 stub 引擎在无网络环境下压测和验证故障切换
+ * 每次调用按配置延迟响应，并可按比例返回 503；任务创建后经过配置的处理时间才查询到结果
+ * 不校验签名，不保存音频内容
+ */
+@Slf4j
+@RestController
+@RequestMapping("/stub/xfyun")
+@ConditionalOnProperty(prefix = "audio.stt.stub", name = "enabled", havingValue = "true")
+public class XfyunStubController {
+    private static final String STATUS_PROCESSING = "2";
+    private static final String STATUS_DONE = "4";
+
+    private final SpeechRouterConfig.Stub config;
+    private final Executor delayed;
+    private final Map<String, StubTask> tasks = new ConcurrentHashMap<>();
+
+    public XfyunStubController(SpeechRouterConfig routerConfig) {
+        this.config = routerConfig.getStub();
+        this.delayed = CompletableFuture.delayedExecutor(config.getLatency().toMillis(), TimeUnit.MILLISECONDS);
+        log.info("已启用讯飞模拟接口 /stub/xfyun，响应延迟：{}ms，处理时间：{}ms，失败率：{}",
+                config.getLatency().toMillis(), config.getProcessingTime().toMillis(), config.getFailureRate());
+    }
+
+    @PostMapping(value = "/file/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<String>> upload(@RequestPart("data") MultipartFile data) {
+        long size = data.getSize();
+        return respond(() -> ok(Collections.singletonMap("url", audioUrl(size))));
+    }
+
+    @PostMapping("/file/mpupload/init")
+    public CompletableFuture<ResponseEntity<String>> init() {
+        return respond(() -> ok(Collections.singletonMap("upload_id", UUID.randomUUID().toString())));
+    }
+
+    @PostMapping(value = "/file/mpupload/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<String>> partUpload(@RequestPart("data") MultipartFile data) {
+        return respond(() -> ok(null));
+    }
+
+    @PostMapping("/file/mpupload/complete")
+    public CompletableFuture<ResponseEntity<String>> complete() {
+        return respond(() -> ok(Collections.singletonMap("url", audioUrl(-1))));
+    }
+
+    @PostMapping("/file/mpupload/cancel")
+    public CompletableFuture<ResponseEntity<String>> cancel() {
+        return respond(() -> ok(null));
+    }
+
+    @PostMapping("/v2/ost/pro_create")
+    public CompletableFuture<ResponseEntity<String>> create(@RequestBody String body) {
+        JSONObject data = JSON.parseObject(body).getJSONObject("data");
+        String audioUrl = data == null ? null : data.getString("audio_url");
+        return respond(() -> {
+            String taskId = UUID.randomUUID().toString().replace("-", "");
+            tasks.put(taskId, new StubTask(System.currentTimeMillis() + config.getProcessingTime().toMillis(),
+                    "模拟转写结果：" + audioUrl));
+            return ok(Collections.singletonMap("task_id", taskId));
+        });
+    }
+
+    @PostMapping("/v2/ost/query")
+    public CompletableFuture<ResponseEntity<String>> query(@RequestBody String body) {
+        JSONObject business = JSON.parseObject(body).getJSONObject("business");
+        String taskId = business == null ? null : business.getString("task_id");
+        return respond(() -> {
+            StubTask task = taskId == null ? null : tasks.get(taskId);
+            if (task == null) {
+                return error(HttpStatus.OK, 26640, "task not found: " + taskId);
+            }
+            JSONObject data = new JSONObject();
+            data.put("task_id", taskId);
+            if (System.currentTimeMillis() < task.readyAt) {
+                data.put("task_status", STATUS_PROCESSING);
+                return ok(data);
+            }
+            tasks.remove(taskId);
+            data.put("task_status", STATUS_DONE);
+            data.put("result", result(task.text));
+            return ok(data);
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<String>> respond(Supplier<ResponseEntity<String>> response) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < config.getFailureRate()) {
+                return error(HttpStatus.SERVICE_UNAVAILABLE, -1, "stub injected failure");
+            }
+            return response.get();
+        }, delayed);
+    }
+
+    private static String audioUrl(long size) {
+        return "stub://audio/" + UUID.randomUUID() + (size >= 0 ? "?bytes=" + size : "");
+    }
+
+    /**
+     * 与查询结果解析相同的结构：result.lattice[].json_1best.st.rt[].ws[].cw[].w
+     */
+    private static JSONObject result(String text) {
+        JSONObject cw = new JSONObject();
+        cw.put("w", text);
+        JSONObject ws = new JSONObject();
+        ws.put("cw", Collections.singletonList(cw));
+        JSONObject rt = new JSONObject();
+        rt.put("ws", Collections.singletonList(ws));
+        JSONObject st = new JSONObject();
+        st.put("rt", Collections.singletonList(rt));
+        JSONObject best = new JSONObject();
+        best.put("st", st);
+        JSONObject lattice = new JSONObject();
+        lattice.put("json_1best", best);
+        JSONObject result = new JSONObject();
+        result.put("lattice", Collections.singletonList(lattice));
+        return result;
+    }
+
+    private static ResponseEntity<String> ok(Object data) {
+        JSONObject body = new JSONObject();
+        body.put("code", 0);
+        body.put("sid", "stub");
+        body.put("data", data);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body.toJSONString());
+    }
+
+    private static ResponseEntity<String> error(HttpStatus status, int code, String message) {
+        JSONObject body = new JSONObject();
+        body.put("code", code);
+        body.put("sid", "stub");
+        body.put("message", message);
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body.toJSONString());
+    }
+
+    private static final class StubTask {
+        private final long readyAt;
+        private final String text;
+
+        private StubTask(long readyAt, String text) {
+            this.readyAt = readyAt;
+            this.text = text;
+        }
+    }
+}
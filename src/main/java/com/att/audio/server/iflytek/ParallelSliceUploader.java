@@ -0,0 +1,90 @@
+package com.att.audio.server.iflytek;
+
+import com.att.audio.server.request.FileReq;
+import com.att.audio.server.util.Deadline;
+import com.att.audio.server.util.FileCaller;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分块并行上传
+ * 同时上传的分块数不超过 concurrency，每个分块经 XfyunCallGuard 调用：熔断、截止时间和可重试错误的退避重试
+ * 与其他步骤一致，4xx、鉴权等不可重试的错误不重试；任一分块最终失败时停止派发剩余分块
+ */
+@Slf4j
+class ParallelSliceUploader {
+    private final FileCaller fileCaller;
+    private final XfyunCallGuard callGuard;
+    private final Deadline deadline;
+    private final String appId;
+    private final int sliceSize;
+    private final int concurrency;
+    private final int maxRetries;
+
+    ParallelSliceUploader(FileCaller fileCaller, XfyunCallGuard callGuard, Deadline deadline, String appId,
+                          int sliceSize, int concurrency, int maxRetries) {
+        if (sliceSize <= 0) {
+            throw new IllegalArgumentException("分块大小必须大于0：" + sliceSize);
+        }
+        this.fileCaller = fileCaller;
+        this.callGuard = callGuard;
+        this.deadline = deadline;
+        this.appId = appId;
+        this.sliceSize = sliceSize;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    /**
+     * 上传文件的全部分块
+     * @param audioFile 文件
+     * @param uploadId 分块上传ID
+     * @return 全部分块上传成功时完成，任一分块重试耗尽时异常完成
+     */
+    CompletableFuture<Void> upload(File audioFile, String uploadId) {
+        long fileLength = audioFile.length();
+        int sliceCount = (int) ((fileLength + sliceSize - 1) / sliceSize);
+        AtomicInteger nextSlice = new AtomicInteger(1);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(concurrency, sliceCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = nextLane(audioFile, uploadId, sliceCount, nextSlice, failed);
+        }
+        return CompletableFuture.allOf(lanes);
+    }
+
+    private CompletableFuture<Void> nextLane(File audioFile, String uploadId, int sliceCount,
+                                             AtomicInteger nextSlice, AtomicBoolean failed) {
+        int sliceId = nextSlice.getAndIncrement();
+        if (sliceId > sliceCount || failed.get()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return uploadSlice(audioFile, uploadId, sliceId)
+                .whenComplete((v, ex) -> {
+                    if (ex != null) {
+                        failed.set(true);
+                    }
+                })
+                .thenCompose(v -> nextLane(audioFile, uploadId, sliceCount, nextSlice, failed));
+    }
+
+    private CompletableFuture<Void> uploadSlice(File audioFile, String uploadId, int sliceId) {
+        long offset = (long) (sliceId - 1) * sliceSize;
+        long length = Math.min(sliceSize, audioFile.length() - offset);
+        // 每次尝试重新构造请求体，从文件区域重新读取
+        return callGuard.call("上传分块" + sliceId, deadline, maxRetries + 1,
+                        () -> fileCaller.filePartUploadAsync(FileReq.PartUpload.builder()
+                                .requestId(String.valueOf(System.currentTimeMillis()))
+                                .appId(appId)
+                                .uploadId(uploadId)
+                                .sliceId(sliceId)
+                                .body(UploadBodies.fileRegion(audioFile, offset, length))
+                                .build()))
+                .thenAccept(partResp -> log.debug("分块上传成功，sliceId：{}，响应：{}", sliceId, partResp));
+    }
+}
@@ -0,0 +1,199 @@
+package com.att.audio.server.iflytek;
+
+import com.alibaba.fastjson.JSONObject;
+import com.att.audio.server.util.XfyunApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 转写任务状态的集中轮询调度器
+ * 所有待完成的 task_id 由一个调度线程统一管理，按音频时长和服务端返回的进度信息自适应退避，
+ * 并限制每个调度周期发出的查询数，避免每个任务各自循环查询
+ */
+@Slf4j
+public class TaskPollScheduler {
+    private static final long TICK_INTERVAL = 100; // 调度周期
+    private static final long MIN_INTERVAL = 1000; // 最短查询间隔
+    private static final long BASE_INTERVAL = 2000; // 短音频的查询间隔上限
+    private static final long MAX_INTERVAL = 30000; // 最长查询间隔
+    private static final double BACKOFF_FACTOR = 1.5;
+    private static final double JITTER = 0.1;
+
+    private final PriorityQueue<PendingTask> pending =
+            new PriorityQueue<>(Comparator.comparingLong(task -> task.nextPollAt));
+    private final ScheduledExecutorService ticker;
+    private final int maxQueriesPerTick;
+    private final AtomicLong queryCount = new AtomicLong();
+
+    /**
+     * @param name 所属引擎名称，用于调度线程命名
+     * @param maxQueriesPerTick 每个调度周期最多发出的查询数，超出的任务顺延到下个周期
+     */
+    public TaskPollScheduler(String name, int maxQueriesPerTick) {
+        this.maxQueriesPerTick = maxQueriesPerTick;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "xfyun-poll-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, TICK_INTERVAL, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记一个待完成的转写任务
+     * @param taskId 任务ID
+     * @param audioDurationMs 音频时长，用于估算首次查询时间和退避上限
+     * @param maxWaitMs 最长等待时间
+     * @param query 发起一次状态查询，返回查询结果中的 data 对象
+     * @return 任务完成（状态3或4）时的查询结果
+     */
+    public CompletableFuture<JSONObject> track(String taskId, long audioDurationMs, long maxWaitMs,
+                                               Function<String, CompletableFuture<JSONObject>> query) {
+        long now = System.currentTimeMillis();
+        PendingTask task = new PendingTask(taskId, query, now + maxWaitMs, maxWaitMs,
+                clamp(audioDurationMs / 5, BASE_INTERVAL, MAX_INTERVAL));
+        task.interval = clamp(audioDurationMs / 10, MIN_INTERVAL, MAX_INTERVAL);
+        task.nextPollAt = Math.min(now + jitter(task.interval), task.deadline);
+        synchronized (pending) {
+            pending.add(task);
+        }
+        return task.result;
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getQueryCount() {
+        return queryCount.get();
+    }
+
+    /**
+     * 停止调度线程，尚未完成的任务不再查询
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<PendingTask> due = new ArrayList<>();
+        synchronized (pending) {
+            while (due.size() < maxQueriesPerTick && !pending.isEmpty() && pending.peek().nextPollAt <= now) {
+                due.add(pending.poll());
+            }
+        }
+        for (PendingTask task : due) {
+            queryCount.incrementAndGet();
+            try {
+                task.query.apply(task.taskId).whenComplete((queryData, ex) -> onQueryResult(task, queryData, ex));
+            } catch (Exception e) {
+                task.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void onQueryResult(PendingTask task, JSONObject queryData, Throwable ex) {
+        // 在 whenComplete 中抛出的异常会被吞掉，任务既不重新调度也不结束，必须在这里转为任务失败
+        try {
+            handleQueryResult(task, queryData, ex);
+        } catch (RuntimeException e) {
+            log.error("处理查询结果失败，taskId：{}", task.taskId, e);
+            task.result.completeExceptionally(e);
+        }
+    }
+
+    private void handleQueryResult(PendingTask task, JSONObject queryData, Throwable ex) {
+        long now = System.currentTimeMillis();
+        if (ex != null) {
+            // 网络抖动、上游5xx或熔断时任务本身仍在处理，退避后再查，不放弃已创建的任务
+            if (!XfyunApiException.isRetryable(ex) || now >= task.deadline) {
+                task.result.completeExceptionally(XfyunApiException.unwrap(ex));
+                return;
+            }
+            task.interval = Math.min((long) (task.interval * BACKOFF_FACTOR), task.maxInterval);
+            log.warn("查询任务失败，taskId：{}，{}ms后重试：{}", task.taskId, task.interval,
+                    XfyunApiException.unwrap(ex).getMessage());
+            reschedule(task, now);
+            return;
+        }
+        if (queryData == null) {
+            task.result.completeExceptionally(new XfyunApiException("查询结果缺少data，taskId：" + task.taskId,
+                    200, 0, null, false));
+            return;
+        }
+        String status = queryData.getString("task_status");
+        if ("5".equals(status)) {
+            task.result.completeExceptionally(new XfyunApiException("转写任务已取消，taskId：" + task.taskId,
+                    200, 0, null, false));
+            return;
+        } else if ("3".equals(status) || "4".equals(status)) {
+            task.result.complete(queryData);
+            return;
+        }
+
+        if (now >= task.deadline) {
+            task.result.completeExceptionally(new XfyunApiException("转写超时，已等待" + (task.maxWaitMs / 1000)
+                    + "秒，taskId：" + task.taskId, 200, 0, null, false));
+            return;
+        }
+        // 服务端返回预计剩余时间时直接按其安排下次查询，否则按指数退避
+        Long estimate = queryData.getLong("task_estimate_time");
+        if (estimate != null && estimate > 0) {
+            task.interval = clamp(estimate, MIN_INTERVAL, MAX_INTERVAL);
+        } else {
+            task.interval = Math.min((long) (task.interval * BACKOFF_FACTOR), task.maxInterval);
+        }
+        log.info("任务处理中，taskId：{}，状态：{}，{}ms后再次查询", task.taskId, status, task.interval);
+        reschedule(task, now);
+    }
+
+    private void reschedule(PendingTask task, long now) {
+        task.nextPollAt = Math.min(now + jitter(task.interval), task.deadline);
+        synchronized (pending) {
+            pending.add(task);
+        }
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static long jitter(long interval) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return (long) (interval * factor);
+    }
+
+    private static class PendingTask {
+        private final String taskId;
+        private final Function<String, CompletableFuture<JSONObject>> query;
+        private final long deadline;
+        private final long maxWaitMs;
+        private final long maxInterval;
+        private final CompletableFuture<JSONObject> result = new CompletableFuture<>();
+        private long interval;
+        private long nextPollAt;
+
+        private PendingTask(String taskId, Function<String, CompletableFuture<JSONObject>> query,
+                            long deadline, long maxWaitMs, long maxInterval) {
+            this.taskId = taskId;
+            this.query = query;
+            this.deadline = deadline;
+            this.maxWaitMs = maxWaitMs;
+            this.maxInterval = maxInterval;
+        }
+    }
+}
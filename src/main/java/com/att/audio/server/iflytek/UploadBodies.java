@@ -0,0 +1,78 @@
+package com.att.audio.server.iflytek;
+
+import com.att.audio.server.session.AudioSegment;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 流式上传请求体，数据直接写入OkHttp的输出流，不预先拼接成完整数组
+ */
+public final class UploadBodies {
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    private UploadBodies() {
+    }
+
+    /**
+     * 以文件的一段区域作为请求体，写出时从文件通道按段拷贝到输出流，堆内存占用恒定
+     * @param file 文件
+     * @param offset 区域起始位置
+     * @param length 区域长度
+     * @return 请求体
+     */
+    public static RequestBody fileRegion(File file, long offset, long length) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return OCTET_STREAM;
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                     Source source = Okio.source(Channels.newInputStream(channel.position(offset)))) {
+                    sink.write(source, length);
+                }
+            }
+        };
+    }
+
+    /**
+     * 将内存分段以WAV格式作为请求体
+     * 分段在请求完成前必须保持可用（OkHttp重试时可能多次写出）
+     * @param segment 内存分段
+     * @return 请求体
+     */
+    public static RequestBody wav(AudioSegment segment) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return OCTET_STREAM;
+            }
+
+            @Override
+            public long contentLength() {
+                return segment.getWavLength();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                segment.writeWav(sink.outputStream());
+            }
+        };
+    }
+}
@@ -0,0 +1,195 @@
+package com.att.audio.server.iflytek;
+
+import com.att.audio.server.util.Deadline;
+import com.att.audio.server.util.XfyunApiException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 讯飞接口调用的统一包装：熔断、带抖动的指数退避重试和任务截止时间
+ * 连续多次出现网络异常或 5xx/429 时熔断，熔断期间的调用直接失败，不占用连接和等待时间；
+ * 熔断到期后放行一次试探调用，成功则恢复
+ * 只有幂等的步骤（上传、分块初始化与合并）在可重试的失败后重试，创建任务不重试以免重复建任务
+ */
+@Slf4j
+public class XfyunCallGuard {
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int failureThreshold;
+    private final long openMs;
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    /**
+     * @param maxAttempts 幂等步骤的最大尝试次数（含首次）
+     * @param baseDelayMs 首次重试的退避时间
+     * @param maxDelayMs 退避时间上限
+     * @param failureThreshold 连续失败多少次后熔断
+     * @param openMs 熔断持续时间
+     */
+    public XfyunCallGuard(int maxAttempts, long baseDelayMs, long maxDelayMs, int failureThreshold, long openMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMs = openMs;
+    }
+
+    /**
+     * 执行一次接口调用
+     * @param step 步骤名称，用于日志
+     * @param deadline 所属任务的截止时间，剩余时间不足以等待下次重试时不再重试
+     * @param idempotent 是否可以安全重试
+     * @param call 发起一次调用，同步抛出的异常同样视为调用失败
+     * @return 调用结果
+     */
+    public <T> CompletableFuture<T> call(String step, Deadline deadline, boolean idempotent,
+                                         Supplier<CompletableFuture<T>> call) {
+        return attempt(step, deadline, idempotent ? maxAttempts : 1, call, 1);
+    }
+
+    /**
+     * 执行一次幂等调用，使用单独的最大尝试次数，如分块上传按分块配置的重试次数
+     * @param step 步骤名称，用于日志
+     * @param deadline 所属任务的截止时间
+     * @param maxAttempts 最大尝试次数（含首次）
+     * @param call 发起一次调用
+     * @return 调用结果
+     */
+    public <T> CompletableFuture<T> call(String step, Deadline deadline, int maxAttempts,
+                                         Supplier<CompletableFuture<T>> call) {
+        return attempt(step, deadline, Math.max(1, maxAttempts), call, 1);
+    }
+
+    private <T> CompletableFuture<T> attempt(String step, Deadline deadline, int maxAttempts,
+                                             Supplier<CompletableFuture<T>> call, int attempt) {
+        if (deadline.isExpired()) {
+            return CompletableFuture.failedFuture(XfyunApiException.deadlineExceeded(step));
+        }
+        if (!tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            return CompletableFuture.failedFuture(new XfyunApiException(
+                    "讯飞接口熔断中，" + step + "直接失败", 0, 0, null, true));
+        }
+        callCount.incrementAndGet();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((result, ex) -> {
+            if (ex == null) {
+                onSuccess();
+                return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = XfyunApiException.unwrap(ex);
+            boolean retryable = XfyunApiException.isRetryable(cause);
+            onFailure(retryable);
+            if (!retryable || attempt >= maxAttempts) {
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+            long delay = backoff(attempt);
+            if (deadline.remainingMillis() <= delay) {
+                return CompletableFuture.<T>failedFuture(cause);
+            }
+            retryCount.incrementAndGet();
+            log.warn("{}失败，{}ms后重试，第{}次：{}", step, delay, attempt, cause.getMessage());
+            return CompletableFuture.runAsync(() -> { },
+                            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(v -> attempt(step, deadline, maxAttempts, call, attempt + 1));
+        }).thenCompose(f -> f);
+    }
+
+    private long backoff(int attempt) {
+        long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        // 一半固定、一半随机，避免大量任务在同一时刻重试
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        // 半开状态只放行一次试探调用
+        if (trialInFlight) {
+            return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("讯飞接口已恢复，关闭熔断");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure(boolean retryable) {
+        if (!retryable) {
+            // 业务错误说明上游可用，不计入熔断
+            onSuccess();
+            return;
+        }
+        failureCount.incrementAndGet();
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                openedCount.incrementAndGet();
+                log.warn("讯飞接口连续失败{}次，熔断{}ms", consecutiveFailures, openMs);
+            }
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + openMs;
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", getState());
+        stats.put("calls", callCount.get());
+        stats.put("retries", retryCount.get());
+        stats.put("failures", failureCount.get());
+        stats.put("rejected", rejectedCount.get());
+        stats.put("opened", openedCount.get());
+        return stats;
+    }
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -3,161 +3,286 @@ package com.att.audio.server.iflytek;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.att.audio.server.request.*;
+import com.att.audio.server.service.TranscriptionProgress;
+import com.att.audio.server.session.AudioSegment;
 import com.att.audio.server.util.*;
 import com.google.gson.Gson;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.OkHttpClient;
-import org.apache.commons.io.IOUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 @Slf4j
 @Builder
 public class XfyunSpeedTranscription {
-    private static final String FILE_URL_PREFIX = "https://upload-ost-api.xfyun.cn/file";
-    private static final String OPEN_URL_PREFIX = "https://ost-api.xfyun.cn/v2";
-    private static final int SLICE_SIZE = 15728640; // 15M
-    private static final long QUERY_INTERVAL = 2000; // 2秒
+    public static final String FILE_URL_PREFIX = "https://upload-ost-api.xfyun.cn/file";
+    public static final String OPEN_URL_PREFIX = "https://ost-api.xfyun.cn/v2";
     private static final int MAX_WAIT_TIME = 300000; // 5分钟
+    private static final long LARGE_FILE_THRESHOLD = 31457280; // 30M
+    private static final int WAV_HEADER_SIZE = 44;
+    private static final int PCM_BYTES_PER_SECOND = 32000; // audio/L16;rate=16000 单声道
+    private static final XfyunCallGuard DEFAULT_CALL_GUARD = new XfyunCallGuard(3, 200, 5000, 5, 30000);
 
     private final String appId;
     private final String apiKey;
     private final String apiSecret;
     private final OkHttpClient client;
     private final Gson gson;
+    @Builder.Default
+    private final String fileUrlPrefix = FILE_URL_PREFIX; // 文件上传接口地址前缀，可指向本地模拟服务
+    @Builder.Default
+    private final String openUrlPrefix = OPEN_URL_PREFIX; // 转写任务接口地址前缀
+    @Builder.Default
+    private final int sliceSize = 10485760; // 分块上传时每块的大小
+    @Builder.Default
+    private final int uploadConcurrency = 4; // 同时上传的分块数
+    @Builder.Default
+    private final int sliceMaxRetries = 3; // 单个分块的最大重试次数
+    private final TaskPollScheduler pollScheduler; // 任务状态轮询调度器，由所属引擎持有，不在引擎之间共享
+    @Builder.Default
+    private final XfyunCallGuard callGuard = DEFAULT_CALL_GUARD;
+    @Builder.Default
+    private final long jobTimeoutMs = 360000; // 单个任务从上传到取得结果的截止时间，0 表示不限制
 
     public String convertToText(File audioFile) throws IOException, InterruptedException {
-        try (FileInputStream fis = new FileInputStream(audioFile)) {
-            // 1. 上传文件
-            FileCaller fileCaller = FileCaller.builder()
-                    .apiKey(apiKey)
-                    .apiSecret(apiSecret)
-                    .client(client)
-                    .ulrPrefix(FILE_URL_PREFIX)
-                    .build();
-
-            JSONObject uploadResult;
-            if (audioFile.length() < 31457280) { // 30M
-                uploadResult = uploadSmallFile(fileCaller, audioFile, fis);
-            } else {
-                uploadResult = uploadLargeFile(fileCaller, audioFile, fis);
+        // 同步转写与异步转写走同一套重试、熔断和截止时间
+        try {
+            return convertToTextAsync(audioFile).get();
+        } catch (ExecutionException e) {
+            Throwable cause = XfyunApiException.unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
             }
-            String audioUrl = uploadResult.getString("url");
-            log.info("文件上传成功，URL：{}", audioUrl);
-
-            // 2. 创建转写任务
-            OpenCaller openCaller = OpenCaller.builder()
-                    .apiKey(apiKey)
-                    .apiSecret(apiSecret)
-                    .client(client)
-                    .ulrPrefix(OPEN_URL_PREFIX)
-                    .build();
-
-            OpenResp createResp = openCaller.create(OpenReq.Create.builder()
-                    .common(OpenReq.Common.builder().appId(appId).build())
-                    .business(OpenReq.Business.builder()
-                            .requestId(String.valueOf(System.currentTimeMillis()))
-                            .accent("mandarin")
-                            .language("zh_cn")
-                            .domain("pro_ost_ed")
-                            .build())
-                    .data(OpenReq.Data.builder()
-                            .audioUrl(audioUrl)
-                            .encoding("raw")
-                            .format("audio/L16;rate=16000")
-                            .audioSrc("http")
-                            .build())
-                    .build());
-
-            JSONObject createData = JSON.parseObject(JSON.toJSONString(createResp.getData()));
-            String taskId = createData.getString("task_id");
-            log.info("创建任务成功，taskId：{}", taskId);
-
-            // 3. 轮询获取结果
-            return pollResult(openCaller, taskId);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause
+                    : new XfyunApiException("语音转写失败", cause, false);
         }
     }
 
-    private JSONObject uploadSmallFile(FileCaller fileCaller, File audioFile, FileInputStream fis) throws IOException {
-        FileResp<FileResp.UploadData> uploadResp = fileCaller.fileUpload(FileReq.Upload.builder()
-                .appId(appId)
-                .fileName(audioFile.getName())
-                .requestId(String.valueOf(System.currentTimeMillis()))
-                .data(IOUtils.toByteArray(fis))
-                .build());
+    /**
+     * 异步转写：HTTP调用基于OkHttp回调，轮询由调度器驱动，不占用等待线程
+     * @param audioFile 音频文件
+     * @return 转写结果
+     */
+    public CompletableFuture<String> convertToTextAsync(File audioFile) {
+        Deadline deadline = Deadline.after(jobTimeoutMs);
+        FileCaller fileCaller = fileCaller(deadline);
+        OpenCaller openCaller = openCaller(deadline);
+
+        // 1. 上传文件
+        CompletableFuture<JSONObject> upload;
+        if (audioFile.length() < LARGE_FILE_THRESHOLD) {
+            upload = uploadSmallFileAsync(fileCaller, audioFile, deadline);
+        } else {
+            upload = uploadLargeFileAsync(fileCaller, audioFile, deadline);
+        }
 
-        log.debug("小文件上传响应：{}", uploadResp);
-        return JSON.parseObject(JSON.toJSONString(uploadResp.getData()));
+        return upload.thenCompose(uploadResult -> createAndTrack(openCaller, uploadedUrl(uploadResult,
+                TranscriptionProgress.NONE), audioDurationMs(audioFile), TranscriptionProgress.NONE, deadline));
     }
 
-    private JSONObject uploadLargeFile(FileCaller fileCaller, File audioFile, FileInputStream fis) throws IOException {
-        // 初始化分块上传
-        FileResp<FileResp.InitData> initResp = fileCaller.fileInit(FileReq.Init.builder()
-                .requestId(String.valueOf(System.currentTimeMillis()))
-                .appId(appId)
-                .build());
-
-        JSONObject initData = JSON.parseObject(JSON.toJSONString(initResp.getData()));
-        String uploadId = initData.getString("upload_id");
-        log.debug("初始化分块上传，uploadId：{}", uploadId);
-
-        // 分块上传
-        int len;
-        byte[] slice = new byte[SLICE_SIZE];
-        int sliceId = 1;
-        while ((len = fis.read(slice)) > 0) {
-            if (fis.available() == 0) {
-                slice = Arrays.copyOfRange(slice, 0, len);
-            }
-            FileResp<Void> partResp = fileCaller.filePartUpload(FileReq.PartUpload.builder()
-                    .requestId(String.valueOf(System.currentTimeMillis()))
-                    .appId(appId)
-                    .uploadId(uploadId)
-                    .sliceId(sliceId)
-                    .data(slice)
-                    .build());
-            log.debug("分块上传成功，sliceId：{}，响应：{}", sliceId, partResp);
-            sliceId++;
-        }
+    /**
+     * 异步转写内存中的音频分段，上传时直接从内存流式写出，不经过磁盘
+     * @param segment 音频分段，需在返回结果完成前保持可用
+     * @param progress 上传完成、任务创建后的回调
+     * @return 转写结果
+     */
+    public CompletableFuture<String> convertToTextAsync(AudioSegment segment, TranscriptionProgress progress) {
+        Deadline deadline = Deadline.after(jobTimeoutMs);
+        FileCaller fileCaller = fileCaller(deadline);
+        OpenCaller openCaller = openCaller(deadline);
+        // 每次尝试重新构造请求体，从内存重新写出分段
+        return callGuard.call("上传分段", deadline, true, () -> fileCaller.fileUploadAsync(FileReq.Upload.builder()
+                        .appId(appId)
+                        .fileName(new File(segment.getName()).getName())
+                        .requestId(String.valueOf(System.currentTimeMillis()))
+                        .body(UploadBodies.wav(segment))
+                        .build()))
+                .thenCompose(uploadResp -> {
+                    log.debug("内存分段上传响应：{}", uploadResp);
+                    JSONObject uploadResult = JSON.parseObject(JSON.toJSONString(uploadResp.getData()));
+                    return createAndTrack(openCaller, uploadedUrl(uploadResult, progress),
+                            segment.getDurationMs(), progress, deadline);
+                });
+    }
 
-        // 完成上传
-        FileResp<Void> completeResp = fileCaller.fileUploadComplete(FileReq.Complete.builder()
-                .appId(appId)
-                .requestId(String.valueOf(System.currentTimeMillis()))
-                .uploadId(uploadId)
-                .build());
+    /**
+     * 用已上传的音频继续转写，用于重启后恢复上传完成但尚未创建任务的分段
+     * @param audioUrl 上传后的音频地址
+     * @param audioDurationMs 音频时长，用于确定轮询间隔
+     * @param progress 任务创建后的回调
+     * @return 转写结果
+     */
+    public CompletableFuture<String> resumeFromUpload(String audioUrl, long audioDurationMs,
+                                                      TranscriptionProgress progress) {
+        Deadline deadline = Deadline.after(jobTimeoutMs);
+        return createAndTrack(openCaller(deadline), audioUrl, audioDurationMs, progress, deadline);
+    }
+
+    /**
+     * 继续轮询已创建的任务，用于重启后恢复进行中的转写，不再重新上传
+     * @param taskId 任务ID
+     * @param audioDurationMs 音频时长，用于确定轮询间隔
+     * @return 转写结果
+     */
+    public CompletableFuture<String> resumeTask(String taskId, long audioDurationMs) {
+        log.info("继续轮询转写任务，taskId：{}", taskId);
+        Deadline deadline = Deadline.after(jobTimeoutMs);
+        return trackResult(openCaller(deadline), taskId, audioDurationMs, deadline);
+    }
 
-        log.debug("分块上传完成响应：{}", completeResp);
-        return JSON.parseObject(JSON.toJSONString(completeResp.getData()));
+    public XfyunCallGuard getCallGuard() {
+        return callGuard;
     }
 
-    private String pollResult(OpenCaller openCaller, String taskId) throws InterruptedException {
-        long startTime = System.currentTimeMillis();
-        while (System.currentTimeMillis() - startTime < MAX_WAIT_TIME) {
-            OpenResp queryResp = openCaller.query(OpenReq.Query.builder()
-                    .common(OpenReq.Common.builder().appId(appId).build())
-                    .business(OpenReq.QueryBusiness.builder().taskId(taskId).build())
-                    .build());
+    public TaskPollScheduler getPollScheduler() {
+        return pollScheduler;
+    }
 
-            JSONObject queryData = JSON.parseObject(JSON.toJSONString(queryResp.getData()));
-            String status = queryData.getString("task_status");
+    private static String uploadedUrl(JSONObject uploadResult, TranscriptionProgress progress) {
+        String audioUrl = uploadResult.getString("url");
+        log.info("文件上传成功，URL：{}", audioUrl);
+        progress.uploaded(audioUrl);
+        return audioUrl;
+    }
 
-            if ("5".equals(status)) {
-                throw new RuntimeException("转写任务已取消");
-            } else if ("3".equals(status) || "4".equals(status)) {
-                return parseResult(queryData);
-            }
+    private CompletableFuture<String> createAndTrack(OpenCaller openCaller, String audioUrl, long audioDurationMs,
+                                                     TranscriptionProgress progress, Deadline deadline) {
+        // 2. 创建转写任务，非幂等，失败后不重试以免重复建任务
+        return callGuard.call("创建任务", deadline, false, () -> openCaller.createAsync(createRequest(audioUrl)))
+                .thenCompose(createResp -> {
+                    JSONObject createData = JSON.parseObject(JSON.toJSONString(createResp.getData()));
+                    String taskId = createData.getString("task_id");
+                    log.info("创建任务成功，taskId：{}", taskId);
+                    progress.created(taskId);
+                    // 3. 由轮询调度器获取结果
+                    return trackResult(openCaller, taskId, audioDurationMs, deadline);
+                });
+    }
 
-            log.info("任务处理中...");
-            Thread.sleep(QUERY_INTERVAL);
-        }
+    private FileCaller fileCaller(Deadline deadline) {
+        return FileCaller.builder()
+                .apiKey(apiKey)
+                .apiSecret(apiSecret)
+                .client(client)
+                .ulrPrefix(fileUrlPrefix)
+                .deadline(deadline)
+                .build();
+    }
+
+    private OpenCaller openCaller(Deadline deadline) {
+        return OpenCaller.builder()
+                .apiKey(apiKey)
+                .apiSecret(apiSecret)
+                .client(client)
+                .ulrPrefix(openUrlPrefix)
+                .deadline(deadline)
+                .build();
+    }
+
+    private OpenReq.Create createRequest(String audioUrl) {
+        return OpenReq.Create.builder()
+                .common(OpenReq.Common.builder().appId(appId).build())
+                .business(OpenReq.Business.builder()
+                        .requestId(String.valueOf(System.currentTimeMillis()))
+                        .accent("mandarin")
+                        .language("zh_cn")
+                        .domain("pro_ost_ed")
+                        .build())
+                .data(OpenReq.Data.builder()
+                        .audioUrl(audioUrl)
+                        .encoding("raw")
+                        .format("audio/L16;rate=16000")
+                        .audioSrc("http")
+                        .build())
+                .build();
+    }
+
+    private OpenReq.Query queryRequest(String taskId) {
+        return OpenReq.Query.builder()
+                .common(OpenReq.Common.builder().appId(appId).build())
+                .business(OpenReq.QueryBusiness.builder().taskId(taskId).procinfoOn(1).build())
+                .build();
+    }
+
+    private CompletableFuture<JSONObject> uploadSmallFileAsync(FileCaller fileCaller, File audioFile,
+                                                               Deadline deadline) {
+        return callGuard.call("上传文件", deadline, true, () -> fileCaller.fileUploadAsync(FileReq.Upload.builder()
+                        .appId(appId)
+                        .fileName(audioFile.getName())
+                        .requestId(String.valueOf(System.currentTimeMillis()))
+                        .body(UploadBodies.fileRegion(audioFile, 0, audioFile.length()))
+                        .build()))
+                .thenApply(uploadResp -> {
+                    log.debug("小文件上传响应：{}", uploadResp);
+                    return JSON.parseObject(JSON.toJSONString(uploadResp.getData()));
+                });
+    }
+
+    private CompletableFuture<JSONObject> uploadLargeFileAsync(FileCaller fileCaller, File audioFile,
+                                                               Deadline deadline) {
+        // 初始化分块上传
+        return callGuard.call("初始化分块上传", deadline, true, () -> fileCaller.fileInitAsync(FileReq.Init.builder()
+                        .requestId(String.valueOf(System.currentTimeMillis()))
+                        .appId(appId)
+                        .build()))
+                .thenCompose(initResp -> {
+                    JSONObject initData = JSON.parseObject(JSON.toJSONString(initResp.getData()));
+                    String uploadId = initData.getString("upload_id");
+                    log.debug("初始化分块上传，uploadId：{}", uploadId);
+                    // 并行分块上传，全部成功后提交合并，最终失败时取消本次上传
+                    return new ParallelSliceUploader(fileCaller, callGuard, deadline, appId, sliceSize,
+                            uploadConcurrency, sliceMaxRetries)
+                            .upload(audioFile, uploadId)
+                            .whenComplete((v, ex) -> {
+                                if (ex != null) {
+                                    cancelUpload(fileCaller, uploadId);
+                                }
+                            })
+                            .thenCompose(v -> callGuard.call("合并分块", deadline, true,
+                                    () -> fileCaller.fileUploadCompleteAsync(FileReq.Complete.builder()
+                                            .appId(appId)
+                                            .requestId(String.valueOf(System.currentTimeMillis()))
+                                            .uploadId(uploadId)
+                                            .build())));
+                })
+                .thenApply(completeResp -> {
+                    log.debug("分块上传完成响应：{}", completeResp);
+                    return JSON.parseObject(JSON.toJSONString(completeResp.getData()));
+                });
+    }
+
+    private void cancelUpload(FileCaller fileCaller, String uploadId) {
+        log.warn("分块上传失败，取消上传，uploadId：{}", uploadId);
+        fileCaller.fileCancelAsync(FileReq.Cancel.builder()
+                .appId(appId)
+                .requestId(String.valueOf(System.currentTimeMillis()))
+                .uploadId(uploadId)
+                .build())
+                .whenComplete((cancelResp, ex) -> {
+                    if (ex != null) {
+                        log.error("取消分块上传失败，uploadId：{}", uploadId, ex);
+                    }
+                });
+    }
+
+    private CompletableFuture<String> trackResult(OpenCaller openCaller, String taskId, long audioDurationMs,
+                                                  Deadline deadline) {
+        // 交给集中轮询调度器，按音频时长和任务进度自适应查询，最长不超过任务剩余时间
+        // 单次查询不在此重试：可重试的失败由调度器按退避安排下次查询
+        long maxWait = Math.min(MAX_WAIT_TIME, deadline.remainingMillis());
+        return pollScheduler.track(taskId, audioDurationMs, maxWait,
+                        id -> callGuard.call("查询任务", deadline, false, () -> openCaller.queryAsync(queryRequest(id)))
+                                .thenApply(queryResp -> JSON.parseObject(JSON.toJSONString(queryResp.getData()))))
+                .thenApply(this::parseResult);
+    }
 
-        throw new RuntimeException("转写超时，已等待" + (MAX_WAIT_TIME / 1000) + "秒");
+    private static long audioDurationMs(File audioFile) {
+        return Math.max(0, audioFile.length() - WAV_HEADER_SIZE) * 1000 / PCM_BYTES_PER_SECOND;
     }
 
     private String parseResult(JSONObject queryData) {
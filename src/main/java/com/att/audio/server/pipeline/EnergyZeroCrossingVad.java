@@ -0,0 +1,134 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.VadConfig;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于短时能量和过零率的VAD
+ * 帧能量高于固定阈值且高于自适应噪声基底、过零率不过高时判为语音帧
+ */
+@Component
+public class EnergyZeroCrossingVad implements VoiceActivityDetector {
+    private static final double NOISE_ADAPT_RATE = 0.05;
+
+    private final int frameSamples;
+    private final int minSpeechFrames;
+    private final double rmsThresholdSquared;
+    private final double noiseRatioSquared;
+    private final double maxZeroCrossingRate;
+
+    public EnergyZeroCrossingVad(AudioConfig audioConfig, VadConfig vadConfig) {
+        int sampleRate = audioConfig.getSampleRate() > 0 ? audioConfig.getSampleRate() : 16000;
+        int channels = Math.max(1, audioConfig.getChannels());
+        this.frameSamples = Math.max(1, sampleRate * channels * vadConfig.getFrameMs() / 1000);
+        this.minSpeechFrames = Math.max(1, vadConfig.getMinSpeechMs() / Math.max(1, vadConfig.getFrameMs()));
+        this.rmsThresholdSquared = (double) vadConfig.getRmsThreshold() * vadConfig.getRmsThreshold();
+        this.noiseRatioSquared = vadConfig.getNoiseRatio() * vadConfig.getNoiseRatio();
+        this.maxZeroCrossingRate = vadConfig.getMaxZeroCrossingRate();
+    }
+
+    @Override
+    public Analyzer newAnalyzer() {
+        return new EnergyAnalyzer();
+    }
+
+    private class EnergyAnalyzer implements Analyzer {
+        private int pendingLowByte = -1;
+        private int frameCount;
+        private double frameEnergy;
+        private int frameCrossings;
+        private int previousSample;
+        private double noiseFloor = rmsThresholdSquared / noiseRatioSquared;
+        private int totalFrames;
+        private int speechFrames;
+        private int trailingSilenceFrames;
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            int i = offset;
+            int end = offset + length;
+            if (pendingLowByte >= 0 && i < end) {
+                addSample((short) (pendingLowByte | (data[i] << 8)));
+                pendingLowByte = -1;
+                i++;
+            }
+            for (; i + 1 < end; i += 2) {
+                addSample((short) ((data[i] & 0xFF) | (data[i + 1] << 8)));
+            }
+            if (i < end) {
+                pendingLowByte = data[i] & 0xFF;
+            }
+        }
+
+        private void addSample(int sample) {
+            frameEnergy += (double) sample * sample;
+            if ((sample >= 0) != (previousSample >= 0)) {
+                frameCrossings++;
+            }
+            previousSample = sample;
+            if (++frameCount == frameSamples) {
+                endFrame();
+            }
+        }
+
+        private void endFrame() {
+            double energy = frameEnergy / frameCount;
+            double zeroCrossingRate = (double) frameCrossings / frameCount;
+            boolean speech = energy >= rmsThresholdSquared
+                    && energy >= noiseFloor * noiseRatioSquared
+                    && zeroCrossingRate <= maxZeroCrossingRate;
+            if (speech) {
+                speechFrames++;
+                trailingSilenceFrames = 0;
+            } else {
+                trailingSilenceFrames++;
+                // 仅用非语音帧更新噪声基底，下降快、上升慢
+                noiseFloor = energy < noiseFloor ? energy
+                        : noiseFloor + (energy - noiseFloor) * NOISE_ADAPT_RATE;
+            }
+            totalFrames++;
+            frameCount = 0;
+            frameEnergy = 0;
+            frameCrossings = 0;
+        }
+
+        @Override
+        public int getTotalFrames() {
+            return totalFrames;
+        }
+
+        @Override
+        public int getSpeechFrames() {
+            return speechFrames;
+        }
+
+        @Override
+        public int getTrailingSilenceFrames() {
+            return trailingSilenceFrames;
+        }
+
+        @Override
+        public int getFrameSamples() {
+            return frameSamples;
+        }
+
+        @Override
+        public boolean hasSpeech() {
+            return speechFrames >= minSpeechFrames;
+        }
+
+        @Override
+        public void reset() {
+            // 未满一帧的采样和半个采样属于上一分段，不能计入新分段的第一帧
+            pendingLowByte = -1;
+            frameCount = 0;
+            frameEnergy = 0;
+            frameCrossings = 0;
+            previousSample = 0;
+            totalFrames = 0;
+            speechFrames = 0;
+            trailingSilenceFrames = 0;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.LatestCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 各会话最新转写结果的进程内近端缓存
+ * 读取只访问本地Map，未命中时才从Redis加载；本实例写入后直接更新本地副本
+ * 其他实例写入后通过Redis发布订阅通知失效，另设TTL兜底，通知丢失时也不会长期陈旧
+ * 尚未订阅成功（如Redis暂不可用）时不在本地保留结果，避免读到其他实例已更新的旧值
+ * 只缓存有结果的会话，条目数有上限并定期清除过期条目，任意 deviceId 的查询不会使本地Map无限增长
+ */
+@Slf4j
+@Component
+public class LatestTranscriptionCache implements MessageListener {
+    public static final String GLOBAL_SCOPE = "*";
+    private static final String KEY = "audio:transcription:latest:result";
+    private static final String FIELD_TEXT = "text";
+    private static final String FIELD_TIME = "time";
+    private static final List<Object> FIELDS = Arrays.asList(FIELD_TEXT, FIELD_TIME);
+    private static final long RESUBSCRIBE_DELAY_SECONDS = 5;
+
+    private final LatestCacheConfig config;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final ScheduledExecutorService subscriber;
+    private volatile RedisMessageListenerContainer listenerContainer;
+    private volatile boolean subscribed;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Latest> local = new ConcurrentHashMap<>();
+    // 每次失效递增，加载期间发生失效时不写回可能已陈旧的结果
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public LatestTranscriptionCache(LatestCacheConfig config, StringRedisTemplate redisTemplate,
+                                    RedisConnectionFactory connectionFactory) {
+        this.config = config;
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.subscriber = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "latest-cache-subscriber");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.isEnabled()) {
+            // 在后台订阅，Redis不可用时不影响启动
+            subscriber.execute(this::subscribe);
+            long purgeInterval = Math.max(1000, config.getTtl().toMillis());
+            subscriber.scheduleWithFixedDelay(() -> purgeExpired(System.currentTimeMillis()),
+                    purgeInterval, purgeInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void subscribe() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(this, new ChannelTopic(config.getChannel()));
+        try {
+            container.afterPropertiesSet();
+            container.start();
+            listenerContainer = container;
+            subscribed = true;
+            log.info("已订阅最新转写结果失效通知，频道：{}", config.getChannel());
+        } catch (Exception e) {
+            log.warn("订阅最新转写结果失效通知失败，{}秒后重试：{}", RESUBSCRIBE_DELAY_SECONDS, e.getMessage());
+            destroyQuietly(container);
+            subscriber.schedule(this::subscribe, RESUBSCRIBE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void destroyQuietly(RedisMessageListenerContainer container) {
+        try {
+            container.destroy();
+        } catch (Exception e) {
+            log.debug("关闭订阅容器失败", e);
+        }
+    }
+
+    public static String key(String scope) {
+        return GLOBAL_SCOPE.equals(scope) ? KEY : KEY + ":" + scope;
+    }
+
+    public static Map<String, String> fields(String text, String time) {
+        Map<String, String> fields = new LinkedHashMap<>(4);
+        fields.put(FIELD_TEXT, text);
+        fields.put(FIELD_TIME, time);
+        return fields;
+    }
+
+    /**
+     * 获取最新转写结果
+     * @param scope 会话ID，GLOBAL_SCOPE 表示所有会话中最新的一条
+     */
+    public Latest get(String scope) {
+        long now = System.currentTimeMillis();
+        Latest latest = local.get(scope);
+        if (latest != null && latest.expireAt > now) {
+            hits.incrementAndGet();
+            return latest;
+        }
+        long loadGeneration = generation.get();
+        List<Object> values = redisTemplate.opsForHash().multiGet(key(scope), FIELDS);
+        loads.incrementAndGet();
+        latest = Latest.of((String) values.get(0), (String) values.get(1), now + config.getTtl().toMillis());
+        // 没有结果的会话（包括客户端随意传入的 deviceId）不进入缓存
+        if (subscribed && generation.get() == loadGeneration && latest.text != null) {
+            store(scope, latest, now);
+        }
+        return latest;
+    }
+
+    private void store(String scope, Latest latest, long now) {
+        if (!local.containsKey(scope) && local.size() >= config.getMaxEntries()) {
+            purgeExpired(now);
+            if (local.size() >= config.getMaxEntries()) {
+                return;
+            }
+        }
+        local.put(scope, latest);
+    }
+
+    private void purgeExpired(long now) {
+        local.values().removeIf(latest -> latest.expireAt <= now);
+    }
+
+    /**
+     * 本实例写入Redis成功后更新本地副本
+     * @return 需要广播给其他实例的失效通知
+     */
+    public String updated(Map<String, Map<String, String>> written) {
+        generation.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long expireAt = now + config.getTtl().toMillis();
+        for (Map.Entry<String, Map<String, String>> entry : written.entrySet()) {
+            Map<String, String> fields = entry.getValue();
+            if (subscribed) {
+                store(entry.getKey(), Latest.of(fields.get(FIELD_TEXT), fields.get(FIELD_TIME), expireAt), now);
+            } else {
+                local.remove(entry.getKey());
+            }
+        }
+        return instanceId + "|" + String.join(",", written.keySet());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public String getChannel() {
+        return config.getChannel();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || instanceId.equals(body.substring(0, separator))) {
+            // 本实例发出的通知，本地副本已是最新
+            return;
+        }
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        invalidate(Arrays.asList(body.substring(separator + 1).split(",")));
+    }
+
+    private void invalidate(Collection<String> scopes) {
+        for (String scope : scopes) {
+            local.remove(scope);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", local.size());
+        stats.put("hits", hits.get());
+        stats.put("loads", loads.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriber.shutdownNow();
+        RedisMessageListenerContainer container = listenerContainer;
+        if (container != null) {
+            destroyQuietly(container);
+        }
+    }
+
+    /**
+     * 最新转写结果及其预先生成的响应内容
+     */
+    public static final class Latest {
+        private static final int ETAG_BYTES = 16;
+
+        private final String text;
+        private final String time;
+        private final String body;
+        private final String etag;
+        private final long expireAt;
+
+        private Latest(String text, String time, String body, String etag, long expireAt) {
+            this.text = text;
+            this.time = time;
+            this.body = body;
+            this.etag = etag;
+            this.expireAt = expireAt;
+        }
+
+        static Latest of(String text, String time, long expireAt) {
+            if (text == null || time == null) {
+                return new Latest(null, null, "暂无转写记录", "\"empty\"", expireAt);
+            }
+            // ETag只由内容决定，各实例对同一结果生成相同的值
+            String body = "[" + time + "] " + text;
+            return new Latest(text, time, body, etag(body), expireAt);
+        }
+
+        /**
+         * @return 响应内容 SHA-256 摘要前128位的强ETag
+         */
+        private static String etag(String body) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(body.getBytes(StandardCharsets.UTF_8));
+                return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, ETAG_BYTES))
+                        + "\"";
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * 按 If-None-Match 判断客户端的副本是否仍是最新：逐个比较逗号分隔的实体标签，
+         * 忽略弱标签前缀 W/（GET 条件请求按弱比较），"*" 总是匹配
+         * @param ifNoneMatch 请求头的值，可为空
+         * @return 匹配时返回 true，应响应 304
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if ("*".equals(candidate)) {
+                    return true;
+                }
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getTime() {
+            return time;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.archive.SegmentStore;
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.LosslessCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 音频分段的异步磁盘归档
+ * 归档不在转写的关键路径上，由单独的线程顺序追加到分段归档文件，队列满时放弃归档
+ * 默认以无损压缩格式保存，读取时再还原为WAV
+ */
+@Slf4j
+@Component
+public class SegmentArchiver {
+    private final AudioConfig audioConfig;
+    private final SegmentStore segmentStore;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public SegmentArchiver(AudioConfig audioConfig, SegmentStore segmentStore) {
+        this.audioConfig = audioConfig;
+        this.segmentStore = segmentStore;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(audioConfig.getArchiveQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "audio-archive");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 提交分段归档，归档完成或放弃后释放分段的一次引用
+     * @param segment 已持有一次引用的分段
+     */
+    public void archive(AudioSegment segment) {
+        try {
+            executor.execute(() -> {
+                try {
+                    segmentStore.append(segment, useLossless(segment));
+                    log.info("分段已归档: {}", segment.getName());
+                } catch (Exception e) {
+                    log.error("保存音频分段失败: {}", segment.getName(), e);
+                } finally {
+                    segment.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            droppedCount.incrementAndGet();
+            log.error("归档队列已满，放弃保存: {}", segment.getName());
+            segment.release();
+        }
+    }
+
+    private boolean useLossless(AudioSegment segment) {
+        return audioConfig.getArchiveFormat() == AudioConfig.ArchiveFormat.LPC
+                && LosslessCodec.isSupported(segment.getBitsPerSample(), segment.getChannels());
+    }
+
+    /**
+     * 以WAV格式读取已归档的分段，找不到时再查找旧版本散落保存的文件
+     * @param fileName 分段文件名（如 audio_default_20240118_153045_001.wav）
+     * @param out WAV输出，不会被关闭
+     * @return 分段不存在时返回 false
+     * @throws IOException 如果读取或解码失败
+     */
+    public boolean readWav(String fileName, OutputStream out) throws IOException {
+        if (segmentStore.readWav(fileName, out)) {
+            return true;
+        }
+        Path wavPath = Paths.get(audioConfig.getSavePath()).resolve(fileName);
+        Path lossless = losslessPath(wavPath);
+        if (Files.exists(lossless)) {
+            try (InputStream in = Files.newInputStream(lossless)) {
+                LosslessCodec.decodeToWav(in, out);
+            }
+            return true;
+        }
+        if (Files.exists(wavPath)) {
+            Files.copy(wavPath, out);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean exists(String fileName) throws IOException {
+        if (segmentStore.exists(fileName)) {
+            return true;
+        }
+        Path wavPath = Paths.get(audioConfig.getSavePath()).resolve(fileName);
+        return Files.exists(losslessPath(wavPath)) || Files.exists(wavPath);
+    }
+
+    private static Path losslessPath(Path wavPath) {
+        String fileName = wavPath.getFileName().toString();
+        return wavPath.resolveSibling(fileName.substring(0, fileName.lastIndexOf('.')) + LosslessCodec.EXTENSION);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 尽量写完已排队的分段
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,49 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.SegmentConfig;
+import com.att.audio.server.session.AudioSegment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按停顿切分音频分段
+ * 分段达到最短时长后，末尾静音达到停顿阈值即切分；达到最长时长时无论是否停顿都切分
+ * 时长均以采样数计算
+ */
+@Component
+public class SilenceSegmenter {
+    private final SegmentConfig segmentConfig;
+    private final int bytesPerSample;
+    private final long minSamples;
+    private final long maxSamples;
+    private final long pauseSamples;
+
+    public SilenceSegmenter(AudioConfig audioConfig, SegmentConfig segmentConfig) {
+        this.segmentConfig = segmentConfig;
+        int channels = Math.max(1, audioConfig.getChannels());
+        long samplesPerSecond = (long) audioConfig.getSampleRate() * channels;
+        this.bytesPerSample = Math.max(1, audioConfig.getBitsPerSample() / 8);
+        this.minSamples = samplesPerSecond * segmentConfig.getMinDurationMs() / 1000;
+        this.maxSamples = samplesPerSecond * segmentConfig.getMaxDurationMs() / 1000;
+        this.pauseSamples = samplesPerSecond * segmentConfig.getPauseMs() / 1000;
+    }
+
+    public boolean isEnabled() {
+        return segmentConfig.getMode() == SegmentConfig.Mode.SILENCE;
+    }
+
+    /**
+     * 判断当前分段是否应在此处切分
+     * @param segment 当前分段
+     * @param vad 当前分段的VAD分析器
+     * @return 应切分时返回 true
+     */
+    public boolean shouldCut(AudioSegment segment, VoiceActivityDetector.Analyzer vad) {
+        long samples = segment.getDataLength() / bytesPerSample;
+        if (samples >= maxSamples) {
+            return true;
+        }
+        long trailingSilenceSamples = (long) vad.getTrailingSilenceFrames() * vad.getFrameSamples();
+        return samples >= minSamples && trailingSilenceSamples >= pauseSamples;
+    }
+}
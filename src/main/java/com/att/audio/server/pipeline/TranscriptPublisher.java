@@ -0,0 +1,165 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.PushConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通过 Server-Sent Events 推送新的转写结果
+ * 发布方只把消息放入各订阅者自己的有界队列，由发送线程写出，慢速客户端不会阻塞转写流程
+ * 队列满时丢弃该订阅者最早的消息，内存占用与订阅者数量成正比且有上限
+ */
+@Slf4j
+@Component
+public class TranscriptPublisher {
+    private static final String EVENT_NAME = "transcript";
+
+    private final PushConfig config;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor sender;
+    private final ScheduledExecutorService heartbeat;
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public TranscriptPublisher(PushConfig config) {
+        this.config = config;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(config.getSenderThreads(), config.getSenderThreads(),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "transcript-push-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transcript-push-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getHeartbeatInterval().toMillis();
+        this.heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 订阅转写结果
+     * @param sessionId 只接收该会话的结果，为 null 时接收所有会话
+     * @return SSE连接，订阅者已满时返回 null
+     */
+    public SseEmitter subscribe(String sessionId) {
+        if (subscribers.size() >= config.getMaxSubscribers()) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(config.getTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(sessionId, emitter, config.getSubscriberQueueCapacity());
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * 向订阅了该会话的连接推送一条转写结果，不阻塞调用线程
+     */
+    public void publish(TranscriptionHistory.Record record) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        publishedCount.incrementAndGet();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sessionId == null || subscriber.sessionId.equals(record.getSessionId())) {
+                subscriber.offer(SseEmitter.event().name(EVENT_NAME).data(record, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("published", publishedCount.get());
+        stats.put("dropped", droppedCount.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        sender.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private final class Subscriber implements Runnable {
+        private final String sessionId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(String sessionId, SseEmitter emitter, int capacity) {
+            this.sessionId = sessionId;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            while (!pending.offer(event)) {
+                // 客户端跟不上时丢弃最早的消息
+                if (pending.poll() != null) {
+                    droppedCount.incrementAndGet();
+                }
+            }
+            // 同一订阅者同时只有一个发送任务，保证消息顺序
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = pending.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("推送连接已断开", e);
+                subscribers.remove(this);
+                pending.clear();
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // 发送结束前新到达的消息
+            if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                sender.execute(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.TranscriptionCacheConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按PCM内容哈希缓存转写结果，本地LRU在前、Redis在后，两级均按TTL过期
+ * 完全相同的音频分段直接返回已有结果，不再上传和创建转写任务
+ */
+@Slf4j
+@Component
+public class TranscriptionCache {
+    private static final String KEY_PREFIX = "audio:transcription:cache:";
+
+    private final TranscriptionCacheConfig config;
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, Entry> local;
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TranscriptionCache(TranscriptionCacheConfig config, StringRedisTemplate redisTemplate) {
+        this.config = config;
+        this.redisTemplate = redisTemplate;
+        this.local = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > config.getLocalSize();
+            }
+        };
+    }
+
+    /**
+     * 查询缓存的转写结果
+     * @param contentHash PCM内容哈希
+     * @return 转写结果，未命中时返回 null
+     */
+    public String get(String contentHash) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (local) {
+            Entry entry = local.get(contentHash);
+            if (entry != null) {
+                if (entry.expireAt > now) {
+                    localHits.incrementAndGet();
+                    return entry.text;
+                }
+                local.remove(contentHash);
+            }
+        }
+        try {
+            String text = redisTemplate.opsForValue().get(KEY_PREFIX + contentHash);
+            if (text != null) {
+                redisHits.incrementAndGet();
+                putLocal(contentHash, text, now);
+                return text;
+            }
+        } catch (Exception e) {
+            log.warn("读取转写缓存失败", e);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String contentHash, String text) {
+        if (!config.isEnabled() || text == null) {
+            return;
+        }
+        putLocal(contentHash, text, System.currentTimeMillis());
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + contentHash, text, config.getRedisTtl());
+        } catch (Exception e) {
+            log.warn("写入转写缓存失败", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.isEnabled());
+        synchronized (local) {
+            stats.put("localSize", local.size());
+        }
+        stats.put("localHits", localHits.get());
+        stats.put("redisHits", redisHits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private void putLocal(String contentHash, String text, long now) {
+        synchronized (local) {
+            local.put(contentHash, new Entry(text, now + config.getLocalTtl().toMillis()));
+        }
+    }
+
+    private static class Entry {
+        private final String text;
+        private final long expireAt;
+
+        private Entry(String text, long expireAt) {
+            this.text = text;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.TranscriptionConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 专用的语音转写线程池
+ * 转写任务与公共线程池隔离，并限制并发数、进行中的异步任务数和排队长度
+ */
+@Slf4j
+@Component
+public class TranscriptionExecutor {
+    private final ThreadPoolExecutor executor;
+    private final TranscriptionConfig.RejectionPolicy rejectionPolicy;
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final Semaphore inFlightPermits;
+    private final int maxInFlight;
+
+    public TranscriptionExecutor(TranscriptionConfig config) {
+        this.rejectionPolicy = config.getRejectionPolicy();
+        this.maxInFlight = config.getMaxInFlight();
+        this.inFlightPermits = new Semaphore(config.getMaxInFlight());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                config.getConcurrency(),
+                config.getConcurrency(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "transcription-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejectionHandler(config.getRejectionPolicy()));
+        log.info("转写线程池已启动，并发数：{}，进行中任务上限：{}，队列容量：{}，拒绝策略：{}",
+                config.getConcurrency(), config.getMaxInFlight(), config.getQueueCapacity(), config.getRejectionPolicy());
+    }
+
+    /**
+     * 提交转写任务
+     * @param task 转写任务
+     * @return 任务被接收（排队、执行或由调用线程执行）时返回 true，被丢弃时返回 false
+     */
+    public boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 提交异步转写任务
+     * 工作线程在进行中的任务达到上限时等待，此时新任务在队列中排队，队列满后按拒绝策略处理
+     * 任务最终没有启动时（提交被拒绝、排队时被丢弃、等待时被中断或启动时抛出异常）调用 onRejected，
+     * 由提交方释放分段、标记转写日志任务失败，onRejected 至多调用一次
+     * @param task 启动异步转写并返回其结果
+     * @param onRejected 任务未能启动时的清理，参数为原因
+     * @return 任务被接收时返回 true，被拒绝时返回 false（此时 onRejected 已被调用）
+     */
+    public boolean submitAsync(Supplier<? extends CompletableFuture<?>> task, Consumer<Throwable> onRejected) {
+        AsyncTask asyncTask = new AsyncTask(task, onRejected);
+        try {
+            executor.execute(asyncTask);
+            return true;
+        } catch (RejectedExecutionException e) {
+            asyncTask.reject(e);
+            return false;
+        }
+    }
+
+    /**
+     * 队列当前是否有空位，后台提交（如启动时恢复任务）据此等待，避免被拒绝
+     */
+    public boolean hasQueueCapacity() {
+        return executor.getQueue().remainingCapacity() > 0;
+    }
+
+    public int getInFlightCount() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("concurrency", executor.getMaximumPoolSize());
+        stats.put("activeCount", executor.getActiveCount());
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("inFlightCount", getInFlightCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("completedCount", executor.getCompletedTaskCount());
+        stats.put("rejectedCount", rejectedCount.get());
+        stats.put("rejectionPolicy", rejectionPolicy);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private RejectedExecutionHandler rejectionHandler(TranscriptionConfig.RejectionPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                return (r, pool) -> {
+                    rejectedCount.incrementAndGet();
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("转写线程池已关闭");
+                    }
+                    log.warn("转写队列已满，由提交线程执行转写任务");
+                    r.run();
+                };
+            case DISCARD_OLDEST:
+                return (r, pool) -> {
+                    rejectedCount.incrementAndGet();
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("转写线程池已关闭");
+                    }
+                    log.warn("转写队列已满，丢弃最早排队的转写任务");
+                    Runnable oldest = pool.getQueue().poll();
+                    if (oldest instanceof AsyncTask) {
+                        ((AsyncTask) oldest).reject(new RejectedExecutionException("转写队列已满，任务已被更新的分段替换"));
+                    }
+                    pool.execute(r);
+                };
+            case ABORT:
+            default:
+                return (r, pool) -> {
+                    rejectedCount.incrementAndGet();
+                    throw new RejectedExecutionException("转写队列已满");
+                };
+        }
+    }
+
+    /**
+     * 队列中的异步转写任务，携带未能启动时的清理回调
+     */
+    private final class AsyncTask implements Runnable {
+        private final Supplier<? extends CompletableFuture<?>> task;
+        private final Consumer<Throwable> onRejected;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private AsyncTask(Supplier<? extends CompletableFuture<?>> task, Consumer<Throwable> onRejected) {
+            this.task = task;
+            this.onRejected = onRejected;
+        }
+
+        @Override
+        public void run() {
+            if (settled.get()) {
+                return;
+            }
+            try {
+                inFlightPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                reject(e);
+                return;
+            }
+            if (!settled.compareAndSet(false, true)) {
+                inFlightPermits.release();
+                return;
+            }
+            CompletableFuture<?> future;
+            try {
+                future = task.get();
+            } catch (RuntimeException e) {
+                inFlightPermits.release();
+                log.error("启动转写任务失败", e);
+                notifyRejected(e);
+                return;
+            }
+            future.whenComplete((result, ex) -> inFlightPermits.release());
+        }
+
+        private void reject(Throwable cause) {
+            if (settled.compareAndSet(false, true)) {
+                notifyRejected(cause);
+            }
+        }
+
+        private void notifyRejected(Throwable cause) {
+            try {
+                onRejected.accept(cause);
+            } catch (RuntimeException e) {
+                log.error("清理未启动的转写任务失败", e);
+            }
+        }
+    }
+}
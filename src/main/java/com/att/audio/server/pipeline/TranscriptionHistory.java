@@ -0,0 +1,137 @@
+package com.att.audio.server.pipeline;
+
+import com.alibaba.fastjson.JSON;
+import com.att.audio.server.config.HistoryConfig;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按时间索引的转写历史
+ * 每条结果以完成时间为分数写入全局和所属会话两个有序集合，范围查询为 O(log n + m)
+ * 分页游标为上一页最后一条的分数加上该分数已返回的条数，分数相同的记录也不会重复或遗漏
+ */
+@Component
+public class TranscriptionHistory {
+    private static final String KEY_PREFIX = "audio:transcription:history";
+
+    private final HistoryConfig config;
+    private final StringRedisTemplate redisTemplate;
+
+    public TranscriptionHistory(HistoryConfig config, StringRedisTemplate redisTemplate) {
+        this.config = config;
+        this.redisTemplate = redisTemplate;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public static String key(String sessionId) {
+        return sessionId == null ? KEY_PREFIX : KEY_PREFIX + ":" + sessionId;
+    }
+
+    /**
+     * 在批量写入的管道中追加一条记录
+     * @param operations 管道中的Redis操作
+     * @param record 转写记录
+     * @param touchedKeys 收集本批次写入过的索引，供统一裁剪
+     */
+    @SuppressWarnings("unchecked")
+    void append(RedisOperations operations, Record record, Collection<String> touchedKeys) {
+        String member = JSON.toJSONString(record);
+        String sessionKey = key(record.getSessionId());
+        operations.opsForZSet().add(KEY_PREFIX, member, record.getTime());
+        operations.opsForZSet().add(sessionKey, member, record.getTime());
+        touchedKeys.add(KEY_PREFIX);
+        touchedKeys.add(sessionKey);
+    }
+
+    /**
+     * 按保留时长和条数上限裁剪索引，每个批次只对写入过的索引执行一次
+     */
+    @SuppressWarnings("unchecked")
+    void trim(RedisOperations operations, Collection<String> keys, long now) {
+        double expireBefore = now - config.getRetention().toMillis();
+        for (String key : keys) {
+            operations.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, expireBefore);
+            operations.opsForZSet().removeRange(key, 0, -config.getMaxEntries() - 1);
+        }
+    }
+
+    /**
+     * 按时间范围分页查询
+     * @param sessionId 会话ID，为 null 时查询所有会话
+     * @param from 起始时间（毫秒，含），为 null 时不限
+     * @param to 结束时间（毫秒，含），为 null 时不限
+     * @param cursor 上一页返回的游标，为 null 时从头开始
+     * @param limit 每页条数，为 null 时使用默认值
+     * @return 当前页记录及下一页游标，没有更多记录时游标为 null
+     */
+    public Page query(String sessionId, Long from, Long to, String cursor, Integer limit) {
+        int count = limit == null ? config.getDefaultPageSize() : Math.max(1, Math.min(limit, config.getMaxPageSize()));
+        double min = from == null ? Double.NEGATIVE_INFINITY : from;
+        double max = to == null ? Double.POSITIVE_INFINITY : to;
+        long skip = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            int separator = cursor.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("无效的游标: " + cursor);
+            }
+            try {
+                min = Math.max(min, Double.parseDouble(cursor.substring(0, separator)));
+                skip = Long.parseLong(cursor.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的游标: " + cursor, e);
+            }
+        }
+
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(key(sessionId), min, max, skip, count);
+        List<Record> items = new ArrayList<>(tuples == null ? 0 : tuples.size());
+        double lastScore = min;
+        long sameScore = 0;
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                items.add(JSON.parseObject(tuple.getValue(), Record.class));
+                double score = tuple.getScore() == null ? lastScore : tuple.getScore();
+                sameScore = score == lastScore ? sameScore + 1 : 1;
+                lastScore = score;
+            }
+        }
+
+        String nextCursor = null;
+        if (items.size() == count) {
+            // 同一分数跨页时累加跳过条数
+            long nextSkip = lastScore == min ? skip + sameScore : sameScore;
+            nextCursor = (long) lastScore + ":" + nextSkip;
+        }
+        return new Page(items, nextCursor);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Record {
+        private String name; // 分段文件名
+        private String sessionId;
+        private long time; // 转写完成时间（毫秒）
+        private String text;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Page {
+        private List<Record> items;
+        private String nextCursor;
+    }
+}
@@ -0,0 +1,448 @@
+package com.att.audio.server.pipeline;
+
+import com.alibaba.fastjson.JSON;
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.JournalConfig;
+import com.att.audio.server.service.TranscriptionProgress;
+import com.att.audio.server.session.AudioSegment;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 转写任务的预写日志
+ * 分段进入转写、上传完成、创建任务、完成或失败时各追加一行记录，由单独的线程在一个时间窗口内聚合后一次写入并落盘
+ * 启动时重放日志得到未完成的任务，由调用方从中断处继续：已创建的任务继续轮询，已上传的直接创建任务，其余从归档重新读取音频
+ * 日志超过一定大小时只保留未完成任务的最新状态重写，先写临时文件再原子替换
+ */
+@Slf4j
+@Component
+public class TranscriptionJournal {
+    private static final String FILE_NAME = "jobs.log";
+
+    private final boolean enabled;
+    private final Path path;
+    private final BlockingQueue<Entry> queue;
+    private final long flushWindowNanos;
+    private final int batchSize;
+    private final long compactBytes;
+    private final long appendTimeoutNanos;
+    // 未完成任务的最新状态，只由写入线程访问
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+    private final AtomicLong appendCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private List<Entry> recovered;
+    private FileChannel channel;
+    private long size;
+    private Thread flusher;
+    private volatile int pendingCount;
+    private volatile boolean running = true;
+    private boolean unusable;
+
+    public TranscriptionJournal(AudioConfig audioConfig, JournalConfig config) throws IOException {
+        this.enabled = config.isEnabled();
+        this.path = Paths.get(audioConfig.getSavePath(), "journal", FILE_NAME);
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.flushWindowNanos = config.getFlushWindow().toNanos();
+        this.batchSize = config.getBatchSize();
+        this.compactBytes = config.getCompactBytes();
+        this.appendTimeoutNanos = config.getAppendTimeout().toNanos();
+        if (!enabled) {
+            this.recovered = new ArrayList<>();
+            return;
+        }
+        Files.createDirectories(path.getParent());
+        replay();
+        this.recovered = new ArrayList<>(pending.values());
+        try {
+            // 启动时先重写一次，只保留未完成的任务
+            compact();
+        } catch (IOException e) {
+            log.warn("启动时重写转写日志失败，继续追加到原文件", e);
+        }
+        this.pendingCount = pending.size();
+        if (!recovered.isEmpty()) {
+            log.info("转写日志中有 {} 个未完成的任务", recovered.size());
+        }
+        this.flusher = new Thread(this::run, "transcription-journal-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录分段进入转写流程
+     * @param segment 音频分段
+     * @return 用于记录后续状态的任务
+     */
+    public Job start(AudioSegment segment) {
+        Entry entry = new Entry();
+        entry.seq = segment.getSequence();
+        entry.name = segment.getName();
+        entry.session = segment.getSessionId();
+        entry.durationMs = segment.getDurationMs();
+        entry.state = State.QUEUED;
+        entry.time = System.currentTimeMillis();
+        append(entry);
+        return new Job(entry);
+    }
+
+    /**
+     * 取出启动时重放得到的未完成任务，只能取一次
+     */
+    public synchronized List<Job> takeRecovered() {
+        List<Job> jobs = new ArrayList<>(recovered.size());
+        for (Entry entry : recovered) {
+            jobs.add(new Job(entry));
+        }
+        recovered = new ArrayList<>();
+        return jobs;
+    }
+
+    private void append(Entry entry) {
+        if (!enabled) {
+            return;
+        }
+        if (queue.offer(entry)) {
+            return;
+        }
+        // 队列已满时在限定时间内等待写入线程落盘，不无限阻塞请求线程和网络回调线程
+        blockedCount.incrementAndGet();
+        try {
+            if (queue.offer(entry, appendTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 丢失的记录只影响崩溃后的恢复：终态丢失时重启后会重复转写，进行中状态丢失时从更早的状态恢复
+        droppedCount.incrementAndGet();
+        log.warn("转写日志写入队列已满，记录未保存：{}，状态：{}", entry.name, entry.state);
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Entry entry;
+                try {
+                    entry = JSON.parseObject(line, Entry.class);
+                } catch (RuntimeException e) {
+                    // 只可能是崩溃时写了一半的最后一行
+                    log.warn("跳过无法解析的转写日志记录：{}", line);
+                    continue;
+                }
+                apply(entry);
+                lines++;
+            }
+        }
+        log.info("已重放转写日志，记录数：{}", lines);
+    }
+
+    private void apply(Entry entry) {
+        if (entry.state == null || entry.state.isTerminal()) {
+            pending.remove(entry.seq);
+        } else {
+            pending.put(entry.seq, entry);
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 在时间窗口内继续收集，一次写入、一次落盘
+                long deadline = System.nanoTime() + flushWindowNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size() * 160);
+        for (Entry entry : batch) {
+            byte[] line = JSON.toJSONString(entry).getBytes(StandardCharsets.UTF_8);
+            out.write(line, 0, line.length);
+            out.write('\n');
+            apply(entry);
+        }
+        pendingCount = pending.size();
+        try {
+            if (channel == null) {
+                reopen();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            size += out.size();
+            appendCount.addAndGet(batch.size());
+            flushCount.incrementAndGet();
+        } catch (IOException e) {
+            failedCount.addAndGet(batch.size());
+            log.error("写入转写日志失败，条数：{}", batch.size(), e);
+            return;
+        }
+        if (size > compactBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // 原文件和写入通道保持不变，继续追加，下次超过阈值时再重写
+                log.warn("重写转写日志失败，继续追加到原文件", e);
+            }
+        }
+    }
+
+    /**
+     * 重新打开追加通道，失败时日志已无法落盘，记录一次错误
+     */
+    private void reopen() throws IOException {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            size = Files.size(path);
+            if (unusable) {
+                unusable = false;
+                log.info("转写日志已恢复写入：{}", path);
+            }
+        } catch (IOException e) {
+            if (!unusable) {
+                unusable = true;
+                log.error("转写日志无法打开，任务状态不再落盘，重启后无法恢复：{}", path, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 只保留未完成任务的最新状态重写日志
+     */
+    private void compact() throws IOException {
+        // 先写好并替换文件，再切换写入通道；任一步失败时原通道仍然可用
+        Path temp = path.resolveSibling(FILE_NAME + ".tmp");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Entry entry : pending.values()) {
+            byte[] line = JSON.toJSONString(entry).getBytes(StandardCharsets.UTF_8);
+            out.write(line, 0, line.length);
+            out.write('\n');
+        }
+        try (FileChannel tempChannel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                tempChannel.write(buffer);
+            }
+            tempChannel.force(true);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        FileChannel previous = channel;
+        // 文件已被替换，原通道指向旧文件，不能再用于追加
+        channel = null;
+        if (previous != null) {
+            try {
+                previous.close();
+            } catch (IOException e) {
+                log.warn("关闭旧的转写日志通道失败", e);
+            }
+        }
+        reopen();
+        log.debug("转写日志已重写，未完成任务数：{}", pending.size());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pending", pendingCount);
+        stats.put("queued", queue.size());
+        stats.put("appends", appendCount.get());
+        stats.put("flushes", flushCount.get());
+        stats.put("blocked", blockedCount.get());
+        stats.put("dropped", droppedCount.get());
+        stats.put("failed", failedCount.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        // 写完已排队的记录再退出
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * 任务状态
+     */
+    public enum State {
+        /** 已进入转写流程，尚未上传 */
+        QUEUED,
+        /** 音频已上传，记录了音频地址 */
+        UPLOADED,
+        /** 转写任务已创建，记录了任务ID */
+        CREATED,
+        DONE,
+        FAILED;
+
+        boolean isTerminal() {
+            return this == DONE || this == FAILED;
+        }
+    }
+
+    /**
+     * 日志中的一行记录，即任务在某一时刻的完整状态
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Entry {
+        private long seq;
+        private String name;
+        private String session;
+        private long durationMs;
+        private String engine;
+        private State state;
+        private String url;
+        private String taskId;
+        private long time;
+
+        private Entry next(State state) {
+            Entry next = new Entry();
+            next.seq = seq;
+            next.name = name;
+            next.session = session;
+            next.durationMs = durationMs;
+            next.engine = engine;
+            next.url = url;
+            next.taskId = taskId;
+            next.state = state;
+            next.time = System.currentTimeMillis();
+            return next;
+        }
+    }
+
+    /**
+     * 一个转写任务，各状态依次追加到日志
+     */
+    public final class Job implements TranscriptionProgress {
+        private volatile Entry entry;
+
+        private Job(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Entry getEntry() {
+            return entry;
+        }
+
+        /**
+         * @return 分段文件名（不含目录）
+         */
+        public String getFileName() {
+            return new File(entry.name).getName();
+        }
+
+        @Override
+        public void routed(String engine) {
+            // 只记录在内存中，随下一条状态一起落盘；尚未上传的任务恢复时重新选择引擎
+            Entry routed = entry.next(entry.state);
+            routed.engine = engine;
+            routed.time = entry.time;
+            entry = routed;
+        }
+
+        @Override
+        public void uploaded(String audioUrl) {
+            Entry next = entry.next(State.UPLOADED);
+            next.url = audioUrl;
+            transition(next);
+        }
+
+        @Override
+        public void created(String taskId) {
+            Entry next = entry.next(State.CREATED);
+            next.taskId = taskId;
+            transition(next);
+        }
+
+        public void done() {
+            transition(entry.next(State.DONE));
+        }
+
+        public void failed() {
+            transition(entry.next(State.FAILED));
+        }
+
+        private void transition(Entry next) {
+            entry = next;
+            append(next);
+        }
+    }
+}
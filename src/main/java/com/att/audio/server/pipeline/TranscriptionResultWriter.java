@@ -0,0 +1,240 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.TranscriptionConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 转写结果的批量Redis写入
+ * 各转写线程只把结果放入队列，由单独的线程在一个短时间窗口内聚合后以一次管道往返写入
+ * 最新结果的文本和时间保存在同一个哈希中（全局和每个会话各一个），一次HSET同时更新，不会出现两者不一致
+ * 同一管道中同时写入按时间索引的历史记录，并对本批次涉及的索引做一次裁剪
+ */
+@Slf4j
+@Component
+public class TranscriptionResultWriter {
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long ENQUEUE_WAIT_MILLIS = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final TranscriptionHistory history;
+    private final LatestTranscriptionCache latestCache;
+    private final BlockingQueue<Write> queue;
+    private final long flushWindowNanos;
+    private final int batchSize;
+    private final Thread flusher;
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    /** 同一时间只有一个线程执行管道写入 */
+    private final Object flushLock = new Object();
+    private volatile boolean running = true;
+
+    public TranscriptionResultWriter(TranscriptionConfig config, StringRedisTemplate redisTemplate,
+                                     TranscriptionHistory history, LatestTranscriptionCache latestCache) {
+        this.redisTemplate = redisTemplate;
+        this.history = history;
+        this.latestCache = latestCache;
+        this.queue = new ArrayBlockingQueue<>(config.getResultQueueCapacity());
+        this.flushWindowNanos = config.getResultFlushWindow().toNanos();
+        this.batchSize = config.getResultBatchSize();
+        this.flusher = new Thread(this::run, "transcription-result-writer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 保存某个分段的转写结果
+     * @param sessionId 分段所属会话
+     * @param key 分段文件名
+     * @param text 转写结果
+     */
+    public void saveResult(String sessionId, String key, String text) {
+        enqueue(new Write(sessionId, key, text));
+    }
+
+    /**
+     * 更新全局最新转写结果，用于不属于任何会话的转写，同一批次内只保留最后一次
+     * @param text 转写结果
+     */
+    public void saveLatest(String text) {
+        enqueue(new Write(null, null, text));
+    }
+
+    private void enqueue(Write write) {
+        try {
+            while (flusher.isAlive()) {
+                // 队列已满时阻塞转写线程等待写入线程腾出空间，形成反压而不是丢失结果
+                if (queue.offer(write, ENQUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                log.warn("转写结果队列已满，等待写入线程，队列长度：{}", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写入线程已退出（关闭之后才完成的转写）或等待被中断时，由调用线程直接写入
+        List<Write> batch = new ArrayList<>(1);
+        batch.add(write);
+        flush(batch);
+    }
+
+    private void run() {
+        List<Write> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Write first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 在时间窗口内继续收集，窗口结束或批次已满时一起写入
+                long deadline = System.nanoTime() + flushWindowNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Write next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Write> batch) {
+        synchronized (flushLock) {
+            doFlush(batch);
+        }
+    }
+
+    private void doFlush(List<Write> batch) {
+        Map<String, String> results = new HashMap<>();
+        List<TranscriptionHistory.Record> records = new ArrayList<>();
+        // 每个会话及全局只写本批次最后一条结果
+        Map<String, Map<String, String>> latest = new LinkedHashMap<>();
+        for (Write write : batch) {
+            if (write.key != null) {
+                results.put(write.key, write.text);
+            }
+            // 无语音分段的空结果只作标记，不进入历史，也不作为最新结果
+            if (write.text == null || write.text.isEmpty()) {
+                continue;
+            }
+            String time = TIME_FORMATTER.format(LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(write.createdAt), ZoneId.systemDefault()));
+            Map<String, String> fields = LatestTranscriptionCache.fields(write.text, time);
+            latest.put(LatestTranscriptionCache.GLOBAL_SCOPE, fields);
+            if (write.sessionId != null) {
+                latest.put(write.sessionId, fields);
+            }
+            if (write.key != null && history.isEnabled()) {
+                records.add(new TranscriptionHistory.Record(write.key, write.sessionId, write.createdAt, write.text));
+            }
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    if (!results.isEmpty()) {
+                        operations.opsForValue().multiSet(results);
+                    }
+                    if (!records.isEmpty()) {
+                        Set<String> touchedKeys = new HashSet<>();
+                        for (TranscriptionHistory.Record record : records) {
+                            history.append(operations, record, touchedKeys);
+                        }
+                        history.trim(operations, touchedKeys, System.currentTimeMillis());
+                    }
+                    for (Map.Entry<String, Map<String, String>> entry : latest.entrySet()) {
+                        operations.opsForHash().putAll(LatestTranscriptionCache.key(entry.getKey()), entry.getValue());
+                    }
+                    return null;
+                }
+            });
+            flushCount.incrementAndGet();
+            writeCount.addAndGet(batch.size());
+            if (!latest.isEmpty()) {
+                notifyLatest(latest);
+                log.info("已将最新转写结果保存到 Redis，时间：{}", latest.get(LatestTranscriptionCache.GLOBAL_SCOPE).get("time"));
+            }
+        } catch (Exception e) {
+            failedCount.addAndGet(batch.size());
+            log.error("批量保存转写结果到 Redis 失败，条数：{}", batch.size(), e);
+        }
+    }
+
+    private void notifyLatest(Map<String, Map<String, String>> latest) {
+        if (!latestCache.isEnabled()) {
+            return;
+        }
+        // 先更新本实例的近端缓存，再通知其他实例失效
+        String message = latestCache.updated(latest);
+        try {
+            redisTemplate.convertAndSend(latestCache.getChannel(), message);
+        } catch (Exception e) {
+            log.warn("发布最新转写结果失效通知失败", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("flushes", flushCount.get());
+        stats.put("writes", writeCount.get());
+        stats.put("failed", failedCount.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // 写完已排队的结果再退出
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private static final class Write {
+        private final String sessionId;
+        private final String key;
+        private final String text;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Write(String sessionId, String key, String text) {
+            this.sessionId = sessionId;
+            this.key = key;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.att.audio.server.pipeline;
+
+/**
+ * 语音活动检测（VAD）
+ * 实现需保证分析过程不分配内存，每个会话持有一个可复用的分析器
+ */
+public interface VoiceActivityDetector {
+    /**
+     * 创建分析器，每个会话一个，不要求线程安全
+     * @return 分析器
+     */
+    Analyzer newAnalyzer();
+
+    interface Analyzer {
+        /**
+         * 分析一段16位小端PCM数据，可跨调用拼接（不要求按采样对齐）
+         * @param data 数据数组
+         * @param offset 起始位置
+         * @param length 数据长度
+         */
+        void update(byte[] data, int offset, int length);
+
+        /**
+         * @return 自上次 reset 以来已分析的帧数
+         */
+        int getTotalFrames();
+
+        /**
+         * @return 自上次 reset 以来判定为语音的帧数
+         */
+        int getSpeechFrames();
+
+        /**
+         * @return 末尾连续的非语音帧数
+         */
+        int getTrailingSilenceFrames();
+
+        /**
+         * @return 每帧对应的采样数
+         */
+        int getFrameSamples();
+
+        /**
+         * @return 当前分段是否包含足够的语音
+         */
+        boolean hasSpeech();
+
+        /**
+         * 开始新的分段时调用，清空统计和未满一帧的数据（保留噪声估计）
+         */
+        void reset();
+    }
+}
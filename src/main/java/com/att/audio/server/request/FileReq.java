@@ -3,6 +3,7 @@ package com.att.audio.server.request;
 import com.alibaba.fastjson.annotation.JSONField;
 import lombok.Builder;
 import lombok.Data;
+import okhttp3.RequestBody;
 
 public interface FileReq {
     @Data
@@ -13,6 +14,7 @@ public interface FileReq {
         private String cloudId;//云唯一标识(0代表公有云)
         private String fileName;//文件名称
         private byte[] data;//文件上传数据
+        private RequestBody body;//流式上传数据，设置时优先于data
     }
 
     @Data
@@ -34,6 +36,7 @@ public interface FileReq {
         private String uploadId;//上传唯一标识
         private int sliceId;
         private byte[] data;
+        private RequestBody body;//流式分片数据，设置时优先于data
     }
 
     @Data
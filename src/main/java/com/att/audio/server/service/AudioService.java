@@ -1,12 +1,50 @@
 package com.att.audio.server.service;
 
+import com.att.audio.server.session.AudioSession;
+
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 
 public interface AudioService {
     /**
-     * 处理接收到的音频数据
+     * 处理接收到的音频数据（默认会话）
+     * @param audioData PCM音频数据
+     * @throws IOException 如果保存文件时发生错误
+     */
+    default void handleAudioData(byte[] audioData) throws IOException {
+        handleAudioData(AudioSession.DEFAULT_ID, audioData);
+    }
+
+    /**
+     * 处理指定设备/音频流的音频数据
+     * @param sessionId 设备或音频流ID
      * @param audioData PCM音频数据
      * @throws IOException 如果保存文件时发生错误
      */
-    void handleAudioData(byte[] audioData) throws IOException;
-} 
\ No newline at end of file
+    default void handleAudioData(String sessionId, byte[] audioData) throws IOException {
+        handleAudioData(sessionId, new ByteArrayInputStream(audioData));
+    }
+
+    /**
+     * 从输入流读取指定设备/音频流的音频数据
+     * @param sessionId 设备或音频流ID
+     * @param audioStream PCM音频数据流，读取到流结束为止
+     * @return 读取的字节数
+     * @throws IOException 如果读取数据或保存文件时发生错误
+     */
+    long handleAudioData(String sessionId, InputStream audioStream) throws IOException;
+
+    /**
+     * 结束指定会话当前未满的分段并提交转写，用于音频流结束（如WebSocket连接关闭）时
+     * @param sessionId 设备或音频流ID
+     */
+    void finishSession(String sessionId);
+
+    /**
+     * 获取各会话的分段统计（保留/因无语音丢弃的分段数）
+     * @return 会话ID到统计信息的映射
+     */
+    Map<String, Map<String, Object>> getSessionStats();
+}
@@ -0,0 +1,43 @@
+package com.att.audio.server.service;
+
+import com.att.audio.server.session.AudioSegment;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 语音转写引擎，由路由按健康状态、进行中的任务数和延迟目标为每个分段选择
+ */
+public interface SpeechEngine {
+    /**
+     * @return 引擎名称，记入转写日志，重启后据此回到同一引擎继续任务
+     */
+    String getName();
+    /**
+     * 异步转写内存中的音频分段
+     * @param segment 音频分段，需在返回结果完成前保持可用
+     * @param progress 进度回调
+     * @return 转写结果
+     */
+    CompletableFuture<String> transcribe(AudioSegment segment, TranscriptionProgress progress);
+    /**
+     * 异步转写音频文件
+     * @param audioFile 音频文件
+     * @return 转写结果
+     */
+    CompletableFuture<String> transcribe(File audioFile);
+    /**
+     * 用已上传的音频创建任务并获取结果
+     */
+    CompletableFuture<String> resumeFromUpload(String audioUrl, long audioDurationMs, TranscriptionProgress progress);
+    /**
+     * 继续获取已创建任务的结果
+     */
+    CompletableFuture<String> resumeTask(String taskId, long audioDurationMs);
+    /**
+     * @return 引擎当前是否可用（例如未处于熔断状态）
+     */
+    boolean isHealthy();
+    Map<String, Object> getStats();
+}
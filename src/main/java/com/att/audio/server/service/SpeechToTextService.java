@@ -1,6 +1,10 @@
 package com.att.audio.server.service;
 
+import com.att.audio.server.session.AudioSegment;
+
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface SpeechToTextService {
     /**
@@ -9,6 +13,49 @@ public interface SpeechToTextService {
      * @return 转写结果
      */
     String convertToText(File audioFile);
+    /**
+     * 异步将音频文件转换为文本，等待转写结果期间不占用线程
+     * @param audioFile 音频文件
+     * @return 转写结果
+     */
+    CompletableFuture<String> convertToTextAsync(File audioFile);
+    /**
+     * 异步将内存中的音频分段转换为文本，直接上传内存数据，不经过磁盘
+     * 调用方需保证分段在返回结果完成前不被释放
+     * @param segment 音频分段
+     * @return 转写结果
+     */
+    default CompletableFuture<String> convertToTextAsync(AudioSegment segment) {
+        return convertToTextAsync(segment, TranscriptionProgress.NONE);
+    }
+    /**
+     * 异步将内存中的音频分段转换为文本，并在上传完成、任务创建后回调，供调用方记录可恢复的状态
+     * @param segment 音频分段
+     * @param progress 进度回调
+     * @return 转写结果
+     */
+    CompletableFuture<String> convertToTextAsync(AudioSegment segment, TranscriptionProgress progress);
+    /**
+     * 用已上传的音频创建任务并获取结果，不再重新上传
+     * @param engine 上传时使用的引擎，为空时使用讯飞引擎
+     * @param audioUrl 上传后的音频地址
+     * @param audioDurationMs 音频时长
+     * @param progress 进度回调
+     * @return 转写结果
+     */
+    CompletableFuture<String> resumeFromUpload(String engine, String audioUrl, long audioDurationMs, TranscriptionProgress progress);
+    /**
+     * 继续获取已创建任务的结果
+     * @param engine 创建任务的引擎，为空时使用讯飞引擎
+     * @param taskId 任务ID
+     * @param audioDurationMs 音频时长
+     * @return 转写结果
+     */
+    CompletableFuture<String> resumeTask(String engine, String taskId, long audioDurationMs);
+    /**
+     * 各转写引擎的调用统计（可用状态、进行中的任务数、平均延迟、熔断与重试次数等）
+     */
+    Map<String, Object> getStats();
     /**
      * 获取最新的转写结果
      * @return 转写结果
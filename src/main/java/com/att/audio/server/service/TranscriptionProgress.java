@@ -0,0 +1,30 @@
+package com.att.audio.server.service;
+
+/**
+ * 转写任务的进度回调，用于在上传完成、任务创建后记录可恢复的中间状态
+ */
+public interface TranscriptionProgress {
+    TranscriptionProgress NONE = new TranscriptionProgress() {
+    };
+
+    /**
+     * 已选定转写引擎，任务切换引擎时会再次回调
+     * @param engine 引擎名称
+     */
+    default void routed(String engine) {
+    }
+
+    /**
+     * 音频已上传
+     * @param audioUrl 上传后的音频地址
+     */
+    default void uploaded(String audioUrl) {
+    }
+
+    /**
+     * 转写任务已创建
+     * @param taskId 任务ID
+     */
+    default void created(String taskId) {
+    }
+}
@@ -1,139 +1,426 @@
 package com.att.audio.server.service.impl;
 
+import com.att.audio.server.archive.SegmentStore;
 import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.VadConfig;
+import com.att.audio.server.pipeline.SegmentArchiver;
+import com.att.audio.server.pipeline.SilenceSegmenter;
+import com.att.audio.server.pipeline.TranscriptPublisher;
+import com.att.audio.server.pipeline.TranscriptionExecutor;
+import com.att.audio.server.pipeline.TranscriptionHistory;
+import com.att.audio.server.pipeline.TranscriptionJournal;
+import com.att.audio.server.pipeline.TranscriptionResultWriter;
+import com.att.audio.server.pipeline.VoiceActivityDetector;
 import com.att.audio.server.service.AudioService;
 import com.att.audio.server.service.SpeechToTextService;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.session.AudioSession;
+import com.att.audio.server.session.SessionLimitException;
+import com.att.audio.server.util.ChunkPool;
 import com.att.audio.server.util.WavUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 public class AudioServiceImpl implements AudioService {
+    private static final long RECOVERY_RETRY_MS = 200;
+
     private final AudioConfig audioConfig;
     private final SpeechToTextService speechToTextService;
-    private final RedisTemplate<String, String> redisTemplate;
-    private final List<byte[]> buffer = new ArrayList<>();
-    private int currentReads = 0;
-    private int fileCount;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss");
+    private final TranscriptionExecutor transcriptionExecutor;
+    private final SegmentArchiver segmentArchiver;
+    private final VoiceActivityDetector voiceActivityDetector;
+    private final VadConfig vadConfig;
+    private final SilenceSegmenter silenceSegmenter;
+    private final TranscriptionResultWriter resultWriter;
+    private final TranscriptPublisher transcriptPublisher;
+    private final Map<String, AudioSession> sessions = new ConcurrentHashMap<>();
+    private final ChunkPool chunkPool;
+    private final SegmentStore segmentStore;
+    private final TranscriptionJournal journal;
+    private final ScheduledExecutorService sessionSweeper;
 
     @Autowired
     public AudioServiceImpl(AudioConfig audioConfig,
                             SpeechToTextService speechToTextService,
-                            RedisTemplate<String, String> redisTemplate) {
+                            TranscriptionExecutor transcriptionExecutor,
+                            SegmentArchiver segmentArchiver,
+                            VoiceActivityDetector voiceActivityDetector,
+                            VadConfig vadConfig,
+                            SilenceSegmenter silenceSegmenter,
+                            TranscriptionResultWriter resultWriter,
+                            TranscriptPublisher transcriptPublisher,
+                            SegmentStore segmentStore,
+                            TranscriptionJournal journal) {
         this.audioConfig = audioConfig;
         this.speechToTextService = speechToTextService;
-        this.redisTemplate = redisTemplate;
+        this.transcriptionExecutor = transcriptionExecutor;
+        this.segmentArchiver = segmentArchiver;
+        this.voiceActivityDetector = voiceActivityDetector;
+        this.vadConfig = vadConfig;
+        this.silenceSegmenter = silenceSegmenter;
+        this.resultWriter = resultWriter;
+        this.transcriptPublisher = transcriptPublisher;
+        this.chunkPool = new ChunkPool(audioConfig.getIngestChunkBytes(), audioConfig.getIngestPoolSize());
         // 确保保存目录存在
         File saveDir = new File(audioConfig.getSavePath());
         saveDir.mkdirs();
-        // 初始化文件序号
-        initializeFileCount();
+        // 分段序号由归档清单分配，启动时不再扫描保存目录
+        this.segmentStore = segmentStore;
+        this.journal = journal;
+        this.sessionSweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audio-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepInterval = Math.max(1000, audioConfig.getSessionIdleTimeout().toMillis() / 4);
+        sessionSweeper.scheduleWithFixedDelay(() -> {
+            try {
+                sweepIdleSessions();
+            } catch (RuntimeException e) {
+                log.error("清理空闲会话失败", e);
+            }
+        }, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
     }
 
-    private void initializeFileCount() {
-        File saveDir = new File(audioConfig.getSavePath());
-        File[] files = saveDir.listFiles((dir, name) -> name.matches("audio_\\d{8}_\\d{6}_\\d{3}\\.wav"));
-        if (files == null || files.length == 0) {
-            fileCount = 1;
-            return;
+    @Override
+    public long handleAudioData(String sessionId, InputStream audioStream) throws IOException {
+        String id = AudioSession.normalizeId(sessionId);
+        // 先取得会话，会话数已满时不读取请求体
+        AudioSession session = acquireSession(id);
+
+        // 在会话锁之外直接从请求流读入池化字节块
+        List<ChunkPool.Chunk> postChunks = new ArrayList<>();
+        long received = chunkPool.readFully(audioStream, postChunks);
+        if (received == 0) {
+            return 0;
         }
 
-        int maxCount = 1;
-        for (File file : files) {
-            String name = file.getName();
+        List<AudioSegment> finished = new ArrayList<>(1);
+        // 会话在读取期间被空闲清理移除时重新获取
+        while (!append(session, postChunks, finished)) {
             try {
-                // 从文件名中提取序号
-                String countStr = name.substring(name.lastIndexOf('_') + 1, name.lastIndexOf('.'));
-                int count = Integer.parseInt(countStr);
-                maxCount = Math.max(maxCount, count);
-            } catch (Exception e) {
-                log.warn("无法从文件名解析序号: {}", name);
+                session = acquireSession(id);
+            } catch (SessionLimitException e) {
+                chunkPool.releaseAll(postChunks);
+                throw e;
             }
         }
-        fileCount = maxCount + 1;
-        log.info("初始化文件序号: {}", fileCount);
+
+        for (AudioSegment segment : finished) {
+            dispatchSegment(session, segment);
+        }
+        return received;
+    }
+
+    private AudioSession acquireSession(String id) {
+        AudioSession session = sessions.get(id);
+        if (session != null) {
+            return session;
+        }
+        // 并发创建时可能略超上限，只用于限制设备ID不断变化导致的无限增长
+        if (sessions.size() >= audioConfig.getMaxSessions()) {
+            throw new SessionLimitException(audioConfig.getMaxSessions());
+        }
+        return sessions.computeIfAbsent(id, key -> new AudioSession(key, voiceActivityDetector.newAnalyzer()));
+    }
+
+    /**
+     * 将字节块追加到会话的当前分段
+     * @return 会话已被移除时返回 false，字节块仍归调用方所有
+     */
+    private boolean append(AudioSession session, List<ChunkPool.Chunk> postChunks, List<AudioSegment> finished) {
+        boolean analyze = vadConfig.isEnabled() || silenceSegmenter.isEnabled();
+        // 仅锁定当前会话，不同设备的数据可以并行追加
+        synchronized (session) {
+            if (session.isClosed()) {
+                return false;
+            }
+            session.touch();
+            // 字节块的所有权转交给当前分段，请求线程不做磁盘写入
+            for (ChunkPool.Chunk chunk : postChunks) {
+                if (!session.hasOpenSegment()) {
+                    openSegment(session);
+                }
+                session.getSegment().append(chunk);
+                if (analyze) {
+                    session.getVad().update(chunk.getData(), 0, chunk.getLength());
+                }
+                // 按停顿切分时，每追加一块都检查是否到达切分点
+                if (silenceSegmenter.isEnabled() && silenceSegmenter.shouldCut(session.getSegment(), session.getVad())) {
+                    finished.add(finishSegment(session));
+                }
+            }
+            if (!silenceSegmenter.isEnabled() && session.recordRead() >= audioConfig.getChunkSize()) {
+                finished.add(finishSegment(session));
+            }
+        }
+        return true;
     }
 
     @Override
-    public synchronized void handleAudioData(byte[] audioData) throws IOException {
-        // 将数据添加到缓冲区
-        buffer.add(audioData);
-        currentReads++;
-
-        // 检查是否累积了足够的数据
-        if (currentReads >= audioConfig.getChunkSize()) {
-            // 计算总数据大小
-            int totalSize = buffer.stream().mapToInt(data -> data.length).sum();
-
-            // 合并所有数据
-            byte[] combinedData = new byte[totalSize];
-            int offset = 0;
-            for (byte[] data : buffer) {
-                System.arraycopy(data, 0, combinedData, offset, data.length);
-                offset += data.length;
+    public void finishSession(String sessionId) {
+        AudioSession session = sessions.get(AudioSession.normalizeId(sessionId));
+        if (session == null) {
+            return;
+        }
+        AudioSegment segment;
+        synchronized (session) {
+            if (!session.hasOpenSegment()) {
+                return;
+            }
+            segment = finishSegment(session);
+        }
+        log.info("音频流已结束，提交未满的分段：{}", segment.getName());
+        dispatchSegment(session, segment);
+    }
+
+    /**
+     * 结束长时间未收到数据的会话：转写其未满的分段并移除会话，释放VAD分析器与池化字节块
+     */
+    private void sweepIdleSessions() {
+        long idleBefore = System.currentTimeMillis() - audioConfig.getSessionIdleTimeout().toMillis();
+        for (AudioSession session : sessions.values()) {
+            if (session.getLastActiveAt() >= idleBefore) {
+                continue;
             }
+            AudioSegment segment = null;
+            synchronized (session) {
+                if (session.getLastActiveAt() >= idleBefore) {
+                    continue;
+                }
+                session.close();
+                if (session.hasOpenSegment()) {
+                    segment = finishSegment(session);
+                }
+            }
+            sessions.remove(session.getId(), session);
+            log.info("会话空闲超时，已移除：{}", session.getId());
+            if (segment != null) {
+                dispatchSegment(session, segment);
+            }
+        }
+    }
+
+    private AudioSegment finishSegment(AudioSession session) {
+        session.getSegment().setSpeech(!vadConfig.isEnabled() || session.getVad().hasSpeech());
+        return session.finishSegment();
+    }
+
+    private void dispatchSegment(AudioSession session, AudioSegment segment) {
+        if (!segment.isSpeech()) {
+            handleNonSpeechSegment(session, segment);
+            return;
+        }
+        session.recordKept();
 
-            // 生成带时间戳的WAV文件名
-            String timestamp = dateFormat.format(new Date());
-            String filename = String.format("%s/audio_%s_%03d.wav",
-                    audioConfig.getSavePath(), timestamp, fileCount);
+        // 磁盘归档为可选项，异步进行，不在转写的关键路径上
+        if (audioConfig.isArchiveEnabled()) {
+            segmentArchiver.archive(segment.retain());
+        }
+
+        transcribe(segment, journal.start(segment));
+    }
 
-            // 保存WAV文件
-            saveWavFile(filename, combinedData);
+    private void transcribe(AudioSegment segment, TranscriptionJournal.Job job) {
+        // 提交到专用转写线程池，直接从内存上传，异步转写不占用等待线程
+        // 未能启动（队列满被拒绝或排队时被丢弃）时同样释放分段并标记任务失败，重启后不再恢复
+        transcriptionExecutor.submitAsync(() -> speechToTextService
+                .convertToTextAsync(segment, job)
+                .whenComplete((text, sttException) -> {
+                    segment.release();
+                    complete(job, text, sttException);
+                }), rejection -> {
+                    segment.release();
+                    complete(job, null, rejection);
+                });
+    }
 
-            // 异步处理语音转写
-            CompletableFuture.runAsync(() -> {
+    private void complete(TranscriptionJournal.Job job, String text, Throwable sttException) {
+        String filename = job.getEntry().getName();
+        if (sttException != null) {
+            job.failed();
+            if (sttException instanceof RejectedExecutionException) {
+                log.error("转写队列已满，分段未转写，文件：{}，原因：{}", filename, sttException.getMessage());
+            } else {
+                log.error("语音转写失败，文件：{}", filename, sttException);
+            }
+            return;
+        }
+        job.done();
+        log.info("语音转写完成，文件：{}，结果：{}", filename, text);
+        String sessionId = job.getEntry().getSession();
+        // 将转写结果交给批量写入线程保存到Redis
+        resultWriter.saveResult(sessionId, filename, text);
+        // 推送给订阅了该会话的客户端
+        transcriptPublisher.publish(new TranscriptionHistory.Record(filename, sessionId,
+                System.currentTimeMillis(), text));
+    }
+
+    private void handleNonSpeechSegment(AudioSession session, AudioSegment segment) {
+        // 无语音的分段不消耗转写配额
+        session.recordDropped();
+        if (vadConfig.getMode() == VadConfig.Mode.MARK) {
+            if (audioConfig.isArchiveEnabled()) {
+                segmentArchiver.archive(segment.retain());
+            }
+            resultWriter.saveResult(segment.getSessionId(), segment.getName(), "");
+            log.info("分段未检测到语音，已标记：{}", segment.getName());
+        } else {
+            log.info("分段未检测到语音，已丢弃：{}", segment.getName());
+        }
+        segment.release();
+    }
+
+    /**
+     * 从转写日志恢复上次退出时未完成的任务
+     * 已创建的任务继续轮询，已上传的直接创建任务，都不重新上传；尚未上传的从归档读回音频后重新转写
+     */
+    @PostConstruct
+    public void recoverJobs() {
+        List<TranscriptionJournal.Job> jobs = journal.takeRecovered();
+        if (jobs.isEmpty()) {
+            return;
+        }
+        Thread recovery = new Thread(() -> {
+            for (TranscriptionJournal.Job job : jobs) {
                 try {
-                    File audioFile = new File(filename);
-                    String text = speechToTextService.convertToText(audioFile);
-                    log.info("语音转写完成，文件：{}，结果：{}", filename, text);
-                    try {
-                        // 将转写结果保存到Redis
-                        redisTemplate.opsForValue().set(filename, text);
-                        log.info("转写结果已保存到Redis，文件：{}", filename);
-                    } catch (Exception redisException) {
-                        log.error("保存转写结果到Redis失败，文件：{}", filename, redisException);
+                    while (!transcriptionExecutor.hasQueueCapacity()) {
+                        // 转写队列已满时等待空位再提交，不让恢复的任务被拒绝
+                        Thread.sleep(RECOVERY_RETRY_MS);
                     }
-                } catch (Exception sttException) {
-                    log.error("语音转写失败，文件：{}", filename, sttException);
+                    recover(job);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
                 }
-            });
+            }
+            log.info("已恢复未完成的转写任务，数量：{}", jobs.size());
+        }, "transcription-recovery");
+        recovery.setDaemon(true);
+        recovery.start();
+    }
 
-            // 重置缓冲区和计数器
-            buffer.clear();
-            currentReads = 0;
-            fileCount++;
+    private void recover(TranscriptionJournal.Job job) {
+        TranscriptionJournal.Entry entry = job.getEntry();
+        switch (entry.getState()) {
+            case CREATED:
+                transcriptionExecutor.submitAsync(() -> speechToTextService
+                        .resumeTask(entry.getEngine(), entry.getTaskId(), entry.getDurationMs())
+                        .whenComplete((text, sttException) -> complete(job, text, sttException)),
+                        rejection -> complete(job, null, rejection));
+                break;
+            case UPLOADED:
+                transcriptionExecutor.submitAsync(() -> speechToTextService
+                        .resumeFromUpload(entry.getEngine(), entry.getUrl(), entry.getDurationMs(), job)
+                        .whenComplete((text, sttException) -> complete(job, text, sttException)),
+                        rejection -> complete(job, null, rejection));
+                break;
+            default:
+                AudioSegment segment = loadArchived(job);
+                if (segment == null) {
+                    job.failed();
+                    return;
+                }
+                transcribe(segment, job);
+        }
+    }
 
-            log.info("WAV文件已保存: {}", filename);
+    private AudioSegment loadArchived(TranscriptionJournal.Job job) {
+        TranscriptionJournal.Entry entry = job.getEntry();
+        ByteArrayOutputStream wav = new ByteArrayOutputStream();
+        try {
+            if (!segmentArchiver.readWav(job.getFileName(), wav)) {
+                log.warn("未找到归档音频，无法恢复转写任务：{}", entry.getName());
+                return null;
+            }
+        } catch (IOException e) {
+            log.error("读取归档音频失败，无法恢复转写任务：{}", entry.getName(), e);
+            return null;
+        }
+        byte[] data = wav.toByteArray();
+        List<ChunkPool.Chunk> chunks = new ArrayList<>();
+        try {
+            chunkPool.readFully(new ByteArrayInputStream(data, WavUtil.HEADER_SIZE,
+                    data.length - WavUtil.HEADER_SIZE), chunks);
+        } catch (IOException e) {
+            chunkPool.releaseAll(chunks);
+            return null;
         }
+        AudioSegment segment = new AudioSegment(entry.getName(), entry.getSession(), entry.getSeq(),
+                entry.getTime(), audioConfig.getSampleRate(), audioConfig.getBitsPerSample(),
+                audioConfig.getChannels(), chunkPool);
+        for (ChunkPool.Chunk chunk : chunks) {
+            segment.append(chunk);
+        }
+        return segment;
     }
 
-    private void saveWavFile(String filename, byte[] pcmData) throws IOException {
-        // 创建WAV文件头
-        byte[] header = WavUtil.createWavHeader(
-                pcmData.length,
-                audioConfig.getSampleRate(),
-                audioConfig.getBitsPerSample(),
-                audioConfig.getChannels()
-        );
+    /**
+     * 停止前保存各会话未满的分段：写入归档并记入转写日志，下次启动时转写
+     */
+    @PreDestroy
+    public void persistOpenSegments() {
+        sessionSweeper.shutdownNow();
+        for (AudioSession session : sessions.values()) {
+            AudioSegment segment;
+            synchronized (session) {
+                if (!session.hasOpenSegment()) {
+                    continue;
+                }
+                segment = finishSegment(session);
+            }
+            if (segment.isSpeech() && audioConfig.isArchiveEnabled() && journal.isEnabled()) {
+                segmentArchiver.archive(segment.retain());
+                journal.start(segment);
+                log.info("停止前保存未满分段，下次启动时转写：{}", segment.getName());
+            }
+            segment.release();
+        }
+    }
 
-        // 写入文件
-        try (FileOutputStream fos = new FileOutputStream(filename)) {
-            fos.write(header);
-            fos.write(pcmData);
+    @Override
+    public Map<String, Map<String, Object>> getSessionStats() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        for (AudioSession session : sessions.values()) {
+            Map<String, Object> sessionStats = new LinkedHashMap<>();
+            sessionStats.put("keptSegments", session.getKeptSegments());
+            sessionStats.put("droppedSegments", session.getDroppedSegments());
+            stats.put(session.getId(), sessionStats);
         }
+        return stats;
+    }
+
+    private void openSegment(AudioSession session) {
+        // 生成带会话ID和时间戳的WAV文件名
+        long startTime = System.currentTimeMillis();
+        long sequence = segmentStore.nextSequence();
+        String filename = audioConfig.getSavePath() + "/"
+                + SegmentStore.segmentName(session.getId(), startTime, sequence);
+        session.startSegment(new AudioSegment(filename, session.getId(), sequence, startTime,
+                audioConfig.getSampleRate(),
+                audioConfig.getBitsPerSample(),
+                audioConfig.getChannels(),
+                chunkPool));
     }
-} 
\ No newline at end of file
+}
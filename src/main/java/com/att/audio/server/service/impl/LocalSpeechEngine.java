@@ -0,0 +1,70 @@
+package com.att.audio.server.service.impl;
+
+import com.att.audio.server.service.SpeechEngine;
+import com.att.audio.server.service.TranscriptionProgress;
+import com.att.audio.server.session.AudioSegment;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的替身引擎：不发起网络调用，按配置的耗时返回占位文本
+ * 用于无网络环境下的压测，以及验证路由在其他引擎不可用时的切换
+ */
+public class LocalSpeechEngine implements SpeechEngine {
+    public static final String NAME = "local";
+
+    private final Executor delayed;
+
+    public LocalSpeechEngine(Duration latency) {
+        this.delayed = CompletableFuture.delayedExecutor(latency.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public CompletableFuture<String> transcribe(AudioSegment segment, TranscriptionProgress progress) {
+        String text = placeholder(new File(segment.getName()).getName(), segment.getDurationMs());
+        return CompletableFuture.supplyAsync(() -> text, delayed);
+    }
+
+    @Override
+    public CompletableFuture<String> transcribe(File audioFile) {
+        String text = placeholder(audioFile.getName(), -1);
+        return CompletableFuture.supplyAsync(() -> text, delayed);
+    }
+
+    @Override
+    public CompletableFuture<String> resumeFromUpload(String audioUrl, long audioDurationMs,
+                                                      TranscriptionProgress progress) {
+        // 本地引擎不上传，也就不会留下可恢复的上传记录
+        return CompletableFuture.failedFuture(new IllegalStateException("本地引擎没有上传记录"));
+    }
+
+    @Override
+    public CompletableFuture<String> resumeTask(String taskId, long audioDurationMs) {
+        return CompletableFuture.failedFuture(new IllegalStateException("本地引擎没有远程任务"));
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        return Collections.emptyMap();
+    }
+
+    private static String placeholder(String name, long durationMs) {
+        return durationMs < 0 ? "[本地引擎] " + name : "[本地引擎] " + name + "，" + durationMs + "ms";
+    }
+}
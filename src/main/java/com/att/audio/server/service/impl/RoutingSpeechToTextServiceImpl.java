@@ -0,0 +1,333 @@
+package com.att.audio.server.service.impl;
+
+import com.att.audio.server.config.SpeechEngineConfig;
+import com.att.audio.server.config.SpeechRouterConfig;
+import com.att.audio.server.pipeline.LatestTranscriptionCache;
+import com.att.audio.server.pipeline.TranscriptionCache;
+import com.att.audio.server.pipeline.TranscriptionResultWriter;
+import com.att.audio.server.service.SpeechEngine;
+import com.att.audio.server.service.SpeechToTextService;
+import com.att.audio.server.service.TranscriptionProgress;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.PcmHash;
+import com.att.audio.server.util.XfyunApiException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 多引擎语音转写路由
+ * 每个分段按引擎健康状态、进行中的任务数和延迟目标选择引擎：优先使用配置顺序中第一个延迟和负载都在目标内的可用引擎，
+ * 都不满足时选择预计完成最早的可用引擎；所选引擎在创建任务前以可重试的原因失败时切换到下一个引擎
+ * 相同内容的音频在路由前先查转写缓存
+ */
+@Slf4j
+@Service
+public class RoutingSpeechToTextServiceImpl implements SpeechToTextService {
+    private static final double LATENCY_ALPHA = 0.2;
+
+    private final List<Route> routes = new ArrayList<>();
+    private final long latencySloMs;
+    private final int maxInFlightPerEngine;
+    private final TranscriptionResultWriter resultWriter;
+    private final LatestTranscriptionCache latestCache;
+    private final TranscriptionCache transcriptionCache;
+
+    /**
+     * @param engines 容器中注册的全部引擎，按 getName() 取用 audio.stt.engines 中列出的引擎
+     */
+    public RoutingSpeechToTextServiceImpl(List<SpeechEngine> engines, SpeechRouterConfig routerConfig,
+                                          TranscriptionResultWriter resultWriter,
+                                          TranscriptionCache transcriptionCache, LatestTranscriptionCache latestCache) {
+        Map<String, SpeechEngine> registry = new LinkedHashMap<>();
+        for (SpeechEngine engine : engines) {
+            if (registry.putIfAbsent(engine.getName(), engine) != null) {
+                throw new IllegalStateException("转写引擎名称重复：" + engine.getName());
+            }
+        }
+        for (String name : routerConfig.getEngines()) {
+            SpeechEngine engine = registry.get(name);
+            if (engine == null) {
+                throw new IllegalStateException("转写引擎未注册：" + name + "，可用引擎：" + registry.keySet()
+                        + "（stub 引擎需要开启 audio.stt.stub.enabled 或配置 audio.stt.stub.base-url）");
+            }
+            routes.add(new Route(engine));
+        }
+        if (routes.isEmpty()) {
+            throw new IllegalStateException("audio.stt.engines 至少需要配置一个转写引擎");
+        }
+        this.latencySloMs = routerConfig.getLatencySlo().toMillis();
+        this.maxInFlightPerEngine = routerConfig.getMaxInFlightPerEngine();
+        this.resultWriter = resultWriter;
+        this.transcriptionCache = transcriptionCache;
+        this.latestCache = latestCache;
+        log.info("转写引擎：{}，延迟目标：{}ms", routerConfig.getEngines(), latencySloMs);
+    }
+
+    @Override
+    public String convertToText(File audioFile) {
+        try {
+            return convertToTextAsync(audioFile).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XfyunApiException("语音转写被中断", e, false);
+        } catch (ExecutionException e) {
+            log.error("语音转写失败", e.getCause());
+            Throwable cause = XfyunApiException.unwrap(e);
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException("语音转写失败", (IOException) cause);
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause
+                    : new XfyunApiException("语音转写失败", cause, false);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> convertToTextAsync(File audioFile) {
+        String contentHash;
+        try {
+            contentHash = PcmHash.ofWavFile(audioFile.toPath());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return cachedOrTranscribe(contentHash, audioFile.getName(),
+                () -> route(rank(), 0, (engine, tracked) -> engine.transcribe(audioFile), TranscriptionProgress.NONE))
+                .thenApply(text -> {
+                    // 文件转写不属于任何会话，只更新全局最新结果；分段结果由调用方按会话保存
+                    saveLatestTranscription(text);
+                    return text;
+                });
+    }
+
+    @Override
+    public CompletableFuture<String> convertToTextAsync(AudioSegment segment, TranscriptionProgress progress) {
+        return cachedOrTranscribe(segment.getContentHash(), segment.getName(),
+                () -> route(rank(), 0, (engine, tracked) -> engine.transcribe(segment, tracked), progress));
+    }
+
+    @Override
+    public CompletableFuture<String> resumeFromUpload(String engine, String audioUrl, long audioDurationMs,
+                                                      TranscriptionProgress progress) {
+        Route route = find(engine);
+        if (route == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("转写引擎未配置：" + engine));
+        }
+        return route.run(e -> e.resumeFromUpload(audioUrl, audioDurationMs, progress));
+    }
+
+    @Override
+    public CompletableFuture<String> resumeTask(String engine, String taskId, long audioDurationMs) {
+        Route route = find(engine);
+        if (route == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("转写引擎未配置：" + engine));
+        }
+        return route.run(e -> e.resumeTask(taskId, audioDurationMs));
+    }
+
+    /**
+     * 按偏好排序候选引擎：可用且延迟、负载都在目标内的按配置顺序在前，其余可用引擎按预计完成时间，不可用的最后
+     */
+    private List<Route> rank() {
+        // 先取快照再排序，排序过程中进行中的任务数变化不影响比较结果
+        List<Ranked> candidates = new ArrayList<>(routes.size());
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            int tier = tier(route);
+            candidates.add(new Ranked(route, tier, tier == 0 ? i : route.estimatedMs()));
+        }
+        candidates.sort(Comparator.comparingInt((Ranked r) -> r.tier).thenComparingDouble(r -> r.key));
+        List<Route> ranked = new ArrayList<>(candidates.size());
+        for (Ranked candidate : candidates) {
+            ranked.add(candidate.route);
+        }
+        return ranked;
+    }
+
+    private int tier(Route route) {
+        if (!route.engine.isHealthy()) {
+            return 2;
+        }
+        return route.latencyMs() <= latencySloMs && route.inFlight.get() < maxInFlightPerEngine ? 0 : 1;
+    }
+
+    private CompletableFuture<String> route(List<Route> ranked, int index,
+                                            BiFunction<SpeechEngine, TranscriptionProgress, CompletableFuture<String>> transcribe,
+                                            TranscriptionProgress progress) {
+        Route route = ranked.get(index);
+        CreatedFlag created = new CreatedFlag(progress);
+        progress.routed(route.engine.getName());
+        return route.run(engine -> transcribe.apply(engine, created))
+                .handle((text, ex) -> {
+                    if (ex == null) {
+                        return CompletableFuture.completedFuture(text);
+                    }
+                    // 任务已在该引擎创建时不再切换，避免重复转写
+                    boolean failover = index + 1 < ranked.size() && !created.created
+                            && XfyunApiException.isRetryable(ex);
+                    if (!failover) {
+                        return CompletableFuture.<String>failedFuture(XfyunApiException.unwrap(ex));
+                    }
+                    log.warn("转写引擎 {} 不可用，切换到 {}：{}", route.engine.getName(),
+                            ranked.get(index + 1).engine.getName(), XfyunApiException.unwrap(ex).getMessage());
+                    return route(ranked, index + 1, transcribe, progress);
+                })
+                .thenCompose(f -> f);
+    }
+
+    private Route find(String engine) {
+        // 早期日志记录不含引擎名，这些任务都在讯飞引擎上创建
+        String name = engine != null ? engine : SpeechEngineConfig.XFYUN;
+        for (Route route : routes) {
+            if (route.engine.getName().equals(name)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<String> cachedOrTranscribe(String contentHash, String name,
+                                                         Supplier<CompletableFuture<String>> transcribe) {
+        // 相同内容的音频直接使用缓存结果，不发起任何远程调用
+        String cached = transcriptionCache.get(contentHash);
+        if (cached != null) {
+            log.info("转写缓存命中，文件：{}", name);
+            return CompletableFuture.completedFuture(cached);
+        }
+        return transcribe.get().thenApply(text -> {
+            transcriptionCache.put(contentHash, text);
+            return text;
+        });
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Route route : routes) {
+            Map<String, Object> engineStats = new LinkedHashMap<>();
+            engineStats.put("healthy", route.engine.isHealthy());
+            engineStats.put("inFlight", route.inFlight.get());
+            engineStats.put("latencyMs", route.latencyMs());
+            engineStats.put("completed", route.completed.get());
+            engineStats.put("failed", route.failed.get());
+            engineStats.putAll(route.engine.getStats());
+            stats.put(route.engine.getName(), engineStats);
+        }
+        return stats;
+    }
+
+    private void saveLatestTranscription(String text) {
+        // 文本和时间写入同一个哈希，由批量写入线程合并提交
+        resultWriter.saveLatest(text);
+    }
+
+    @Override
+    public String getLatestTranscription() {
+        try {
+            return latestCache.get(LatestTranscriptionCache.GLOBAL_SCOPE).getBody();
+        } catch (Exception e) {
+            log.error("获取最新转写结果失败", e);
+            return "获取转写记录失败";
+        }
+    }
+
+    /**
+     * 一个引擎及其进行中的任务数和延迟统计
+     */
+    private static final class Route {
+        private final SpeechEngine engine;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile double latencyMs; // 成功任务延迟的指数移动平均，尚无样本时为 0
+
+        private Route(SpeechEngine engine) {
+            this.engine = engine;
+        }
+
+        private CompletableFuture<String> run(Function<SpeechEngine, CompletableFuture<String>> call) {
+            long start = System.currentTimeMillis();
+            inFlight.incrementAndGet();
+            CompletableFuture<String> future;
+            try {
+                future = call.apply(engine);
+            } catch (RuntimeException e) {
+                // 构造请求时同步抛出的异常同样以失败的结果返回，调用方的完成回调（释放分段等）照常执行
+                future = CompletableFuture.failedFuture(e);
+            }
+            return future.whenComplete((text, ex) -> {
+                inFlight.decrementAndGet();
+                if (ex != null) {
+                    failed.incrementAndGet();
+                } else {
+                    completed.incrementAndGet();
+                    recordLatency(System.currentTimeMillis() - start);
+                }
+            });
+        }
+
+        private synchronized void recordLatency(long elapsedMs) {
+            latencyMs = latencyMs == 0 ? elapsedMs : latencyMs + LATENCY_ALPHA * (elapsedMs - latencyMs);
+        }
+
+        private long latencyMs() {
+            return (long) latencyMs;
+        }
+
+        /**
+         * 预计新任务的完成时间：平均延迟随进行中的任务数增加
+         */
+        private double estimatedMs() {
+            return Math.max(latencyMs, 1) * (1 + inFlight.get());
+        }
+    }
+
+    private static final class Ranked {
+        private final Route route;
+        private final int tier;
+        private final double key;
+
+        private Ranked(Route route, int tier, double key) {
+            this.route = route;
+            this.tier = tier;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 记录任务是否已在当前引擎创建，并把进度转发给调用方
+     */
+    private static final class CreatedFlag implements TranscriptionProgress {
+        private final TranscriptionProgress delegate;
+        private volatile boolean created;
+
+        private CreatedFlag(TranscriptionProgress delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void uploaded(String audioUrl) {
+            delegate.uploaded(audioUrl);
+        }
+
+        @Override
+        public void created(String taskId) {
+            created = true;
+            delegate.created(taskId);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.att.audio.server.service.impl;
+
+import com.att.audio.server.config.XfyunConfig;
+import com.att.audio.server.iflytek.XfyunCallGuard;
+import com.att.audio.server.iflytek.TaskPollScheduler;
+import com.att.audio.server.iflytek.XfyunSpeedTranscription;
+import com.att.audio.server.service.SpeechEngine;
+import com.att.audio.server.service.TranscriptionProgress;
+import com.att.audio.server.session.AudioSegment;
+import com.google.gson.Gson;
+import okhttp3.OkHttpClient;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 讯飞录音文件转写引擎，接口地址可指向讯飞云端或本地模拟服务
+ * 每个引擎有独立的熔断状态和任务轮询调度器
+ */
+public class XfyunSpeechEngine implements SpeechEngine {
+    private final String name;
+    private final XfyunSpeedTranscription transcription;
+
+    /**
+     * @param placeholder 未配置讯飞账号时使用的占位值，用于不校验签名的模拟接口；为空时按配置原样使用
+     * @param pollScheduler 该引擎专用的轮询调度器，生命周期由容器管理
+     */
+    public XfyunSpeechEngine(String name, XfyunConfig xfyunConfig, String placeholder, OkHttpClient client,
+                             TaskPollScheduler pollScheduler, String fileUrlPrefix, String openUrlPrefix) {
+        this.name = name;
+        this.transcription = XfyunSpeedTranscription.builder()
+                .appId(orElse(xfyunConfig.getAppId(), placeholder))
+                .apiKey(orElse(xfyunConfig.getApiKey(), placeholder))
+                .apiSecret(orElse(xfyunConfig.getApiSecret(), placeholder))
+                .client(client)
+                .gson(new Gson())
+                .fileUrlPrefix(fileUrlPrefix)
+                .openUrlPrefix(openUrlPrefix)
+                .sliceSize(xfyunConfig.getSliceSize())
+                .uploadConcurrency(xfyunConfig.getUploadConcurrency())
+                .sliceMaxRetries(xfyunConfig.getSliceMaxRetries())
+                .pollScheduler(pollScheduler)
+                .callGuard(new XfyunCallGuard(xfyunConfig.getCallMaxAttempts(), xfyunConfig.getRetryBaseDelayMs(),
+                        xfyunConfig.getRetryMaxDelayMs(), xfyunConfig.getBreakerFailureThreshold(),
+                        xfyunConfig.getBreakerOpenMs()))
+                .jobTimeoutMs(xfyunConfig.getJobTimeoutMs())
+                .build();
+    }
+
+    private static String orElse(String value, String placeholder) {
+        return value != null ? value : placeholder;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CompletableFuture<String> transcribe(AudioSegment segment, TranscriptionProgress progress) {
+        return transcription.convertToTextAsync(segment, progress);
+    }
+
+    @Override
+    public CompletableFuture<String> transcribe(File audioFile) {
+        return transcription.convertToTextAsync(audioFile);
+    }
+
+    @Override
+    public CompletableFuture<String> resumeFromUpload(String audioUrl, long audioDurationMs,
+                                                      TranscriptionProgress progress) {
+        return transcription.resumeFromUpload(audioUrl, audioDurationMs, progress);
+    }
+
+    @Override
+    public CompletableFuture<String> resumeTask(String taskId, long audioDurationMs) {
+        return transcription.resumeTask(taskId, audioDurationMs);
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return transcription.getCallGuard().getState() != XfyunCallGuard.State.OPEN;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(transcription.getCallGuard().getStats());
+        stats.put("pendingTasks", transcription.getPollScheduler().getPendingCount());
+        return stats;
+    }
+}
@@ -0,0 +1,166 @@
+package com.att.audio.server.session;
+
+import com.att.audio.server.util.ChunkPool;
+import com.att.audio.server.util.PcmHash;
+import com.att.audio.server.util.WavUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内存中的音频分段，由池化字节块组成
+ * 分段可同时交给转写和归档使用，采用引用计数，最后一个使用者释放后字节块归还对象池
+ * 分段在结束前整段保存在内存中，不再边接收边写磁盘：转写直接从内存上传，归档在分段结束后一次追加，
+ * 接收路径上没有磁盘读写；代价是每个会话最多占用一个最长分段的内存（默认 30 秒，16kHz 16 位单声道约 960KB），
+ * 总量由会话数上限约束
+ */
+public class AudioSegment {
+    private final String name;
+    private final String sessionId;
+    private final long sequence;
+    private final long startTime;
+    private final int sampleRate;
+    private final int bitsPerSample;
+    private final int channels;
+    private final ChunkPool pool;
+    private final List<ChunkPool.Chunk> chunks = new ArrayList<>();
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    private long dataLength = 0;
+    private String contentHash;
+    private boolean speech = true;
+
+    public AudioSegment(String name, String sessionId, long sequence, long startTime,
+                        int sampleRate, int bitsPerSample, int channels, ChunkPool pool) {
+        this.name = name;
+        this.sessionId = sessionId;
+        this.sequence = sequence;
+        this.startTime = startTime;
+        this.sampleRate = sampleRate;
+        this.bitsPerSample = bitsPerSample;
+        this.channels = channels;
+        this.pool = pool;
+    }
+
+    /**
+     * 追加字节块，分段接管字节块的所有权，调用方需持有会话锁
+     * @param chunk 池化字节块
+     */
+    public void append(ChunkPool.Chunk chunk) {
+        chunks.add(chunk);
+        dataLength += chunk.getLength();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return 全局递增的分段序号
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return 分段开始时间（毫秒）
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getDataLength() {
+        return dataLength;
+    }
+
+    public long getWavLength() {
+        return WavUtil.HEADER_SIZE + dataLength;
+    }
+
+    /**
+     * @return VAD判定分段是否包含语音
+     */
+    public boolean isSpeech() {
+        return speech;
+    }
+
+    public void setSpeech(boolean speech) {
+        this.speech = speech;
+    }
+
+    public long getDurationMs() {
+        long bytesPerSecond = (long) sampleRate * channels * bitsPerSample / 8;
+        return bytesPerSecond == 0 ? 0 : dataLength * 1000 / bytesPerSecond;
+    }
+
+    /**
+     * 以WAV格式（文件头+PCM）写出分段
+     * @param out 输出流，不会被关闭
+     * @throws IOException 如果写入失败
+     */
+    public void writeWav(OutputStream out) throws IOException {
+        out.write(WavUtil.createWavHeader((int) dataLength, sampleRate, bitsPerSample, channels));
+        for (ChunkPool.Chunk chunk : chunks) {
+            out.write(chunk.getData(), 0, chunk.getLength());
+        }
+    }
+
+    /**
+     * 写出PCM数据（不含WAV文件头）
+     * @param out 输出流，不会被关闭
+     * @throws IOException 如果写入失败
+     */
+    public void writePcm(OutputStream out) throws IOException {
+        for (ChunkPool.Chunk chunk : chunks) {
+            out.write(chunk.getData(), 0, chunk.getLength());
+        }
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * PCM内容哈希，分段结束后调用（结果会被缓存）
+     * @return 内容摘要
+     */
+    public String getContentHash() {
+        if (contentHash == null) {
+            PcmHash hash = new PcmHash();
+            for (ChunkPool.Chunk chunk : chunks) {
+                hash.update(chunk.getData(), 0, chunk.getLength());
+            }
+            contentHash = hash.digest();
+        }
+        return contentHash;
+    }
+
+    public AudioSegment retain() {
+        refCount.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * 释放一次引用，引用全部释放后字节块归还对象池
+     */
+    public void release() {
+        if (refCount.decrementAndGet() == 0) {
+            pool.releaseAll(chunks);
+            chunks.clear();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.att.audio.server.session;
+
+import com.att.audio.server.pipeline.VoiceActivityDetector;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 单个设备/音频流的接收会话
+ * 每个会话持有独立的当前分段和VAD分析器，不同设备之间的写入互不阻塞
+ * 除 normalizeId 和统计计数外的方法均需调用方持有会话锁
+ */
+public class AudioSession {
+    public static final String DEFAULT_ID = "default";
+    private static final int MAX_ID_LENGTH = 64;
+    private static final int ID_HASH_CHARS = 12;
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9-]{1," + MAX_ID_LENGTH + "}");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String id;
+    private final VoiceActivityDetector.Analyzer vad;
+    private final AtomicLong keptSegments = new AtomicLong();
+    private final AtomicLong droppedSegments = new AtomicLong();
+    private AudioSegment segment;
+    private int currentReads = 0;
+    private volatile long lastActiveAt = System.currentTimeMillis();
+    private boolean closed;
+
+    public AudioSession(String id, VoiceActivityDetector.Analyzer vad) {
+        this.id = id;
+        this.vad = vad;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean hasOpenSegment() {
+        return segment != null;
+    }
+
+    /**
+     * 开始一个新的分段
+     * @param segment 空的内存分段
+     */
+    public void startSegment(AudioSegment segment) {
+        this.segment = segment;
+        this.currentReads = 0;
+        vad.reset();
+    }
+
+    public AudioSegment getSegment() {
+        return segment;
+    }
+
+    public VoiceActivityDetector.Analyzer getVad() {
+        return vad;
+    }
+
+    /**
+     * 记录一次请求已追加到当前分段
+     * @return 当前分段已累积的请求数量
+     */
+    public int recordRead() {
+        return ++currentReads;
+    }
+
+    /**
+     * 结束当前分段，分段的所有权转交给调用方
+     * @return 已结束的分段
+     */
+    public AudioSegment finishSegment() {
+        AudioSegment finished = segment;
+        segment = null;
+        currentReads = 0;
+        return finished;
+    }
+
+    /**
+     * 记录会话收到数据的时间，用于判断空闲
+     */
+    public void touch() {
+        lastActiveAt = System.currentTimeMillis();
+    }
+
+    public long getLastActiveAt() {
+        return lastActiveAt;
+    }
+
+    /**
+     * 标记会话已被移除，之后到达的数据需要重新获取会话
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void recordKept() {
+        keptSegments.incrementAndGet();
+    }
+
+    public void recordDropped() {
+        droppedSegments.incrementAndGet();
+    }
+
+    public long getKeptSegments() {
+        return keptSegments.get();
+    }
+
+    public long getDroppedSegments() {
+        return droppedSegments.get();
+    }
+
+    /**
+     * 规范化客户端传入的会话ID，结果仅含可安全用于文件名的字符且不超过64个字符
+     * 已满足要求的ID原样使用；其余ID替换非法字符并截断后附加原始ID的哈希，
+     * 避免 a.b 与 a_b、或前64个字符相同的长ID被合并为同一会话
+     * @param rawId 客户端传入的设备/流ID
+     * @return 规范化后的会话ID
+     */
+    public static String normalizeId(String rawId) {
+        if (rawId == null || rawId.trim().isEmpty()) {
+            return DEFAULT_ID;
+        }
+        String id = rawId.trim();
+        if (SAFE_ID.matcher(id).matches()) {
+            return id;
+        }
+        String safe = id.replaceAll("[^A-Za-z0-9-]", "-");
+        int prefixLength = Math.min(safe.length(), MAX_ID_LENGTH - ID_HASH_CHARS - 1);
+        return safe.substring(0, prefixLength) + "-" + idHash(id);
+    }
+
+    private static String idHash(String id) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(id.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        char[] hex = new char[ID_HASH_CHARS];
+        for (int i = 0; i < ID_HASH_CHARS; i++) {
+            int b = hash[i / 2];
+            hex[i] = HEX[(i % 2 == 0 ? b >> 4 : b) & 0xF];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,11 @@
+package com.att.audio.server.session;
+
+/**
+ * 会话数已达上限，新的设备/会话暂时无法接收数据
+ */
+public class SessionLimitException extends RuntimeException {
+
+    public SessionLimitException(int maxSessions) {
+        super("会话数已达上限：" + maxSessions);
+    }
+}
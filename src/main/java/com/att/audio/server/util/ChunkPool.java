@@ -0,0 +1,104 @@
+package com.att.audio.server.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 定长字节块对象池
+ * 接收音频时直接从请求流读入池化的字节块，避免每次请求都分配新的数组
+ */
+public class ChunkPool {
+    private final int chunkBytes;
+    private final BlockingQueue<Chunk> pool;
+
+    /**
+     * @param chunkBytes 每个字节块的大小
+     * @param maxPooled 池中最多保留的空闲字节块数量，超出部分交给GC回收
+     */
+    public ChunkPool(int chunkBytes, int maxPooled) {
+        this.chunkBytes = chunkBytes;
+        this.pool = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    public Chunk acquire() {
+        Chunk chunk = pool.poll();
+        if (chunk == null) {
+            return new Chunk(new byte[chunkBytes]);
+        }
+        return chunk;
+    }
+
+    public void release(Chunk chunk) {
+        chunk.length = 0;
+        pool.offer(chunk);
+    }
+
+    public void releaseAll(List<Chunk> chunks) {
+        for (Chunk chunk : chunks) {
+            release(chunk);
+        }
+    }
+
+    /**
+     * 将输入流的全部内容读入池化字节块
+     * @param in 输入流
+     * @param out 读取到的字节块，按顺序追加
+     * @return 读取的总字节数
+     * @throws IOException 读取失败时抛出，已读取的字节块会被归还
+     */
+    public long readFully(InputStream in, List<Chunk> out) throws IOException {
+        long total = 0;
+        int start = out.size();
+        try {
+            while (true) {
+                Chunk chunk = acquire();
+                int n;
+                while (chunk.length < chunk.data.length
+                        && (n = in.read(chunk.data, chunk.length, chunk.data.length - chunk.length)) > 0) {
+                    chunk.length += n;
+                }
+                if (chunk.length == 0) {
+                    release(chunk);
+                    return total;
+                }
+                out.add(chunk);
+                total += chunk.length;
+                if (chunk.length < chunk.data.length) {
+                    return total;
+                }
+            }
+        } catch (IOException e) {
+            List<Chunk> read = out.subList(start, out.size());
+            releaseAll(read);
+            read.clear();
+            throw e;
+        }
+    }
+
+    public int getPooledCount() {
+        return pool.size();
+    }
+
+    /**
+     * 池化字节块，有效数据为 data[0, length)
+     */
+    public static class Chunk {
+        private final byte[] data;
+        private int length;
+
+        private Chunk(byte[] data) {
+            this.data = data;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.att.audio.server.util;
+
+/**
+ * 一个转写任务的截止时间，随上传、创建任务和轮询逐级传递，到期后不再发起新的调用
+ */
+public final class Deadline {
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public static Deadline after(long timeoutMs) {
+        return timeoutMs <= 0 ? NONE : new Deadline(System.currentTimeMillis() + timeoutMs);
+    }
+
+    public static Deadline none() {
+        return NONE;
+    }
+
+    public long remainingMillis() {
+        return expiresAt == Long.MAX_VALUE ? Long.MAX_VALUE : expiresAt - System.currentTimeMillis();
+    }
+
+    public boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+
+    public boolean isBounded() {
+        return expiresAt != Long.MAX_VALUE;
+    }
+}
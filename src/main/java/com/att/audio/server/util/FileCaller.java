@@ -1,11 +1,11 @@
 package com.att.audio.server.util;
 
 import com.att.audio.server.request.*;
-import com.alibaba.fastjson.JSON;
 import lombok.Builder;
 import lombok.Data;
 import okhttp3.*;
-import okio.Buffer;
+
+import java.util.concurrent.CompletableFuture;
 
 @Data
 @Builder
@@ -14,134 +14,87 @@ public class FileCaller {
     private String apiKey;
     private String apiSecret;
     private OkHttpClient client;
+    private Deadline deadline; // 所属任务的截止时间，为空时不限制
 
     public FileResp<FileResp.UploadData> fileUpload(FileReq.Upload req) {
-        try {
-            String reqUrl = ulrPrefix + "/upload";
-            RequestBody requestBody = new MultipartBody.Builder().
-                    setType(MultipartBody.FORM).
-                    addFormDataPart("request_id", req.getRequestId()).
-                    addFormDataPart("app_id", req.getAppId()).
-                    addFormDataPart("data", req.getFileName(), RequestBody.create(MediaType.parse("application/octet-stream"), req.getData())).
-                    build();
-
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "multipart/form-data").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest",result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-
-            Response resp = client.newCall(request).execute();
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), FileResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%v)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), FileResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(uploadRequest(req));
+    }
+
+    public CompletableFuture<FileResp<FileResp.UploadData>> fileUploadAsync(FileReq.Upload req) {
+        return enqueue(uploadRequest(req));
     }
 
     public FileResp<FileResp.InitData> fileInit(FileReq.Init req) {
-        try {
-            String reqUrl = ulrPrefix + "/mpupload/init";
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json;charset=utf-8"), JSON.toJSONString(req));
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "application/json").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest", result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-            Response resp = client.newCall(request).execute();
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), FileResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%v)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), FileResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(jsonRequest("/mpupload/init", req));
+    }
+
+    public CompletableFuture<FileResp<FileResp.InitData>> fileInitAsync(FileReq.Init req) {
+        return enqueue(jsonRequest("/mpupload/init", req));
     }
 
     public FileResp<Void> filePartUpload(FileReq.PartUpload req) {
-        try {
-            String reqUrl = ulrPrefix + "/mpupload/upload";
-            RequestBody requestBody = new MultipartBody.Builder().
-                    setType(MultipartBody.FORM).
-                    addFormDataPart("request_id", req.getRequestId()).
-                    addFormDataPart("app_id", req.getAppId()).
-                    addFormDataPart("upload_id", req.getUploadId()).
-                    addFormDataPart("slice_id", String.valueOf(req.getSliceId())).
-                    addFormDataPart("data", String.valueOf(req.getSliceId()), RequestBody.create(MediaType.parse("application/octet-stream"), req.getData())).
-                    build();
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "multipart/form-data").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest", result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-            Response resp = client.newCall(request).execute();
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), FileResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%v)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), FileResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(partUploadRequest(req));
+    }
+
+    public CompletableFuture<FileResp<Void>> filePartUploadAsync(FileReq.PartUpload req) {
+        return enqueue(partUploadRequest(req));
     }
 
     public FileResp<Void> fileUploadComplete(FileReq.Complete req) {
-        try {
-            String reqUrl = ulrPrefix + "/mpupload/complete"; // 分片上传请求的url
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json;charset=utf-8"), JSON.toJSONString(req));
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "application/json").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest", result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-            Response resp = client.newCall(request).execute();
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), FileResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%v)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), FileResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(jsonRequest("/mpupload/complete", req)); // 分片上传请求的url
+    }
+
+    public CompletableFuture<FileResp<Void>> fileUploadCompleteAsync(FileReq.Complete req) {
+        return enqueue(jsonRequest("/mpupload/complete", req));
     }
 
     public FileResp<Void> fileCancel(FileReq.Cancel req) {
-        try {
-            String reqUrl = ulrPrefix + "/mpupload/cancel";
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json;charset=utf-8"), JSON.toJSONString(req));
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "application/json").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest", result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-            Response resp = client.newCall(request).execute();
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), FileResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%v)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), FileResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(jsonRequest("/mpupload/cancel", req));
+    }
+
+    public CompletableFuture<FileResp<Void>> fileCancelAsync(FileReq.Cancel req) {
+        return enqueue(jsonRequest("/mpupload/cancel", req));
+    }
+
+    private Request uploadRequest(FileReq.Upload req) {
+        RequestBody data = req.getBody() != null ? req.getBody()
+                : RequestBody.create(MediaType.parse("application/octet-stream"), req.getData());
+        RequestBody requestBody = new MultipartBody.Builder().
+                setType(MultipartBody.FORM).
+                addFormDataPart("request_id", req.getRequestId()).
+                addFormDataPart("app_id", req.getAppId()).
+                addFormDataPart("data", req.getFileName(), data).
+                build();
+        return signedRequest(ulrPrefix + "/upload", "multipart/form-data", requestBody);
+    }
+
+    private Request partUploadRequest(FileReq.PartUpload req) {
+        RequestBody data = req.getBody() != null ? req.getBody()
+                : RequestBody.create(MediaType.parse("application/octet-stream"), req.getData());
+        RequestBody requestBody = new MultipartBody.Builder().
+                setType(MultipartBody.FORM).
+                addFormDataPart("request_id", req.getRequestId()).
+                addFormDataPart("app_id", req.getAppId()).
+                addFormDataPart("upload_id", req.getUploadId()).
+                addFormDataPart("slice_id", String.valueOf(req.getSliceId())).
+                addFormDataPart("data", String.valueOf(req.getSliceId()), data).
+                build();
+        return signedRequest(ulrPrefix + "/mpupload/upload", "multipart/form-data", requestBody);
+    }
+
+    private Request jsonRequest(String path, Object req) {
+        return signedRequest(ulrPrefix + path, "application/json", XfyunHttp.json(req));
+    }
+
+    private Request signedRequest(String reqUrl, String contentType, RequestBody requestBody) {
+        return XfyunHttp.signedPost(reqUrl, contentType, requestBody, apiKey, apiSecret);
+    }
+
+    private <T> FileResp<T> execute(Request request) {
+        return XfyunHttp.execute(client, deadline, request, FileResp.class);
+    }
+
+    private <T> CompletableFuture<FileResp<T>> enqueue(Request request) {
+        return XfyunHttp.enqueue(client, deadline, request, FileResp.class);
     }
 }
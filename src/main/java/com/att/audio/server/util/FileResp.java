@@ -3,7 +3,7 @@ import com.alibaba.fastjson.annotation.JSONField;
 import lombok.Data;
 
 @Data
-public class FileResp<T> {
+public class FileResp<T> implements XfyunResp {
     private int code;
     private String sid;
     private T data;
@@ -0,0 +1,546 @@
+package com.att.audio.server.util;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 16位PCM的无损压缩编解码（类似FLAC：线性预测 + Rice编码）
+ * 每块最多 BLOCK_FRAMES 帧，各声道分别在固定多项式预测（0-4阶）和量化LPC预测中选择残差最小的一种，
+ * 残差按分区做Rice编码。只用于磁盘归档，上传转写仍使用原始PCM
+ *
+ * 文件格式：
+ * <pre>
+ * 头部  "LPCR" | 版本(1) | 声道数(1) | 采样位数(1) | 保留(1) | 采样率(4) | PCM字节数(8)
+ * 数据块 帧数(16位) | 每个声道的子块 ...，帧数为0表示结束
+ * 结尾  不足一帧的剩余字节数(8位) | 剩余字节
+ * </pre>
+ */
+public final class LosslessCodec {
+    public static final String EXTENSION = ".lpc";
+    private static final byte[] MAGIC = {'L', 'P', 'C', 'R'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int BLOCK_FRAMES = 4096;
+    private static final int PARTITION_SIZE = 256;
+    private static final int MAX_FIXED_ORDER = 4;
+    private static final int LPC_ORDER = 8;
+    private static final int LPC_PRECISION = 12;
+    private static final int MAX_RICE_PARAMETER = 30;
+
+    private LosslessCodec() {
+    }
+
+    /**
+     * 创建编码器，写入的PCM字节编码后输出到 out
+     * @param out 编码输出，编码器关闭时一并关闭
+     * @param sampleRate 采样率
+     * @param bitsPerSample 采样位数，只支持16
+     * @param channels 声道数
+     * @param dataLength PCM总字节数
+     * @return 编码器
+     * @throws IOException 如果写入头部失败
+     */
+    public static Encoder newEncoder(OutputStream out, int sampleRate, int bitsPerSample, int channels,
+                                     long dataLength) throws IOException {
+        if (bitsPerSample != 16 || channels < 1 || channels > 8) {
+            throw new IllegalArgumentException("只支持16位、1-8声道的PCM，当前：" + bitsPerSample + "位 " + channels + "声道");
+        }
+        return new Encoder(out, sampleRate, channels, dataLength);
+    }
+
+    public static boolean isSupported(int bitsPerSample, int channels) {
+        return bitsPerSample == 16 && channels >= 1 && channels <= 8;
+    }
+
+    /**
+     * 解码为WAV
+     * @param in 编码数据
+     * @param wavOut WAV输出，不会被关闭
+     * @return PCM字节数
+     * @throws IOException 如果数据格式错误或读写失败
+     */
+    public static long decodeToWav(InputStream in, OutputStream wavOut) throws IOException {
+        DataInputStream header = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        header.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("不是无损压缩的音频归档");
+            }
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("不支持的归档版本：" + version);
+        }
+        int channels = header.readUnsignedByte();
+        int bitsPerSample = header.readUnsignedByte();
+        header.readUnsignedByte();
+        int sampleRate = header.readInt();
+        long dataLength = header.readLong();
+        wavOut.write(WavUtil.createWavHeader((int) dataLength, sampleRate, bitsPerSample, channels));
+
+        BitReader reader = new BitReader(in);
+        int[][] samples = new int[channels][BLOCK_FRAMES];
+        byte[] pcm = new byte[BLOCK_FRAMES * channels * 2];
+        long written = 0;
+        int frames;
+        while ((frames = (int) reader.readBits(16)) != 0) {
+            for (int ch = 0; ch < channels; ch++) {
+                decodeSubblock(reader, samples[ch], frames);
+            }
+            int p = 0;
+            for (int i = 0; i < frames; i++) {
+                for (int ch = 0; ch < channels; ch++) {
+                    int s = samples[ch][i];
+                    pcm[p++] = (byte) s;
+                    pcm[p++] = (byte) (s >> 8);
+                }
+            }
+            wavOut.write(pcm, 0, p);
+            written += p;
+        }
+        int tail = (int) reader.readBits(8);
+        for (int i = 0; i < tail; i++) {
+            wavOut.write((int) reader.readBits(8));
+        }
+        written += tail;
+        if (written != dataLength) {
+            throw new IOException("归档数据长度不一致，期望 " + dataLength + "，实际 " + written);
+        }
+        return written;
+    }
+
+    private static void decodeSubblock(BitReader reader, int[] s, int n) throws IOException {
+        boolean lpc = reader.readBits(1) == 1;
+        int order;
+        int shift = 0;
+        int[] coefs = null;
+        if (lpc) {
+            order = (int) reader.readBits(4);
+            int precision = (int) reader.readBits(4) + 1;
+            shift = (int) reader.readBits(4);
+            coefs = new int[order];
+            for (int j = 0; j < order; j++) {
+                coefs[j] = reader.readSigned(precision);
+            }
+        } else {
+            order = (int) reader.readBits(3);
+        }
+        order = Math.min(order, n);
+        for (int i = 0; i < order; i++) {
+            s[i] = reader.readSigned(16);
+        }
+        for (int start = order; start < n; start += PARTITION_SIZE) {
+            int end = Math.min(n, start + PARTITION_SIZE);
+            int k = (int) reader.readBits(5);
+            for (int i = start; i < end; i++) {
+                long u = reader.readRice(k);
+                int residual = (int) ((u >>> 1) ^ -(u & 1));
+                s[i] = residual + (lpc ? lpcPredict(s, i, coefs, shift) : fixedPredict(s, i, order));
+            }
+        }
+    }
+
+    private static int fixedPredict(int[] s, int i, int order) {
+        switch (order) {
+            case 0:
+                return 0;
+            case 1:
+                return s[i - 1];
+            case 2:
+                return 2 * s[i - 1] - s[i - 2];
+            case 3:
+                return 3 * s[i - 1] - 3 * s[i - 2] + s[i - 3];
+            default:
+                return 4 * s[i - 1] - 6 * s[i - 2] + 4 * s[i - 3] - s[i - 4];
+        }
+    }
+
+    private static int lpcPredict(int[] s, int i, int[] coefs, int shift) {
+        long sum = 0;
+        for (int j = 0; j < coefs.length; j++) {
+            sum += (long) coefs[j] * s[i - 1 - j];
+        }
+        return (int) (sum >> shift);
+    }
+
+    /**
+     * 编码器，按顺序写入PCM字节，凑满一块即编码输出，不缓存整个分段
+     */
+    public static final class Encoder extends OutputStream {
+        private final BitWriter writer;
+        private final int channels;
+        private final int frameBytes;
+        private final long dataLength;
+        private final byte[] block;
+        private final int[][] samples;
+        private final int[] residual = new int[BLOCK_FRAMES];
+        private final int[] bestResidual = new int[BLOCK_FRAMES];
+        private final double[] windowed = new double[BLOCK_FRAMES];
+        private final double[] autocorrelation = new double[LPC_ORDER + 1];
+        private final double[] lpc = new double[LPC_ORDER];
+        private final double[] lpcScratch = new double[LPC_ORDER];
+        private final int[] quantized = new int[LPC_ORDER];
+        private int blockLength = 0;
+        private long received = 0;
+        private boolean closed = false;
+
+        private Encoder(OutputStream out, int sampleRate, int channels, long dataLength) throws IOException {
+            this.writer = new BitWriter(out);
+            this.channels = channels;
+            this.frameBytes = channels * 2;
+            this.dataLength = dataLength;
+            this.block = new byte[BLOCK_FRAMES * frameBytes];
+            this.samples = new int[channels][BLOCK_FRAMES];
+            byte[] header = new byte[HEADER_SIZE];
+            System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+            header[4] = VERSION;
+            header[5] = (byte) channels;
+            header[6] = 16;
+            writeInt(header, 8, sampleRate);
+            writeInt(header, 12, (int) (dataLength >>> 32));
+            writeInt(header, 16, (int) dataLength);
+            out.write(header);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            received += length;
+            while (length > 0) {
+                int n = Math.min(length, block.length - blockLength);
+                System.arraycopy(data, offset, block, blockLength, n);
+                blockLength += n;
+                offset += n;
+                length -= n;
+                if (blockLength == block.length) {
+                    encodeBlock(BLOCK_FRAMES);
+                    blockLength = 0;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (received != dataLength) {
+                    throw new IOException("PCM长度与声明不一致，声明 " + dataLength + "，实际 " + received);
+                }
+                int frames = blockLength / frameBytes;
+                if (frames > 0) {
+                    encodeBlock(frames);
+                }
+                writer.writeBits(0, 16);
+                int tailStart = frames * frameBytes;
+                int tail = blockLength - tailStart;
+                writer.writeBits(tail, 8);
+                for (int i = tailStart; i < blockLength; i++) {
+                    writer.writeBits(block[i] & 0xFF, 8);
+                }
+            } finally {
+                writer.close();
+            }
+        }
+
+        private void encodeBlock(int frames) throws IOException {
+            for (int i = 0, p = 0; i < frames; i++) {
+                for (int ch = 0; ch < channels; ch++, p += 2) {
+                    samples[ch][i] = (short) ((block[p] & 0xFF) | (block[p + 1] << 8));
+                }
+            }
+            writer.writeBits(frames, 16);
+            for (int ch = 0; ch < channels; ch++) {
+                encodeSubblock(samples[ch], frames);
+            }
+        }
+
+        private void encodeSubblock(int[] s, int n) throws IOException {
+            // 固定多项式预测：选残差绝对值之和最小的阶数
+            int bestOrder = 0;
+            long bestCost = Long.MAX_VALUE;
+            for (int order = 0; order <= Math.min(MAX_FIXED_ORDER, n); order++) {
+                long cost = 0;
+                for (int i = order; i < n; i++) {
+                    int r = s[i] - fixedPredict(s, i, order);
+                    residual[i] = r;
+                    cost += Math.abs(r);
+                }
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestOrder = order;
+                    System.arraycopy(residual, order, bestResidual, order, n - order);
+                }
+            }
+
+            // 量化LPC预测，代价明显更小时才使用（系数本身也要占用位数）
+            int lpcShift = n > LPC_ORDER * 4 ? computeLpc(s, n) : -1;
+            if (lpcShift >= 0) {
+                long cost = 0;
+                for (int i = LPC_ORDER; i < n; i++) {
+                    int r = s[i] - lpcPredict(s, i, quantized, lpcShift);
+                    residual[i] = r;
+                    cost += Math.abs(r);
+                }
+                if (cost + LPC_ORDER * LPC_PRECISION < bestCost) {
+                    writer.writeBits(1, 1);
+                    writer.writeBits(LPC_ORDER, 4);
+                    writer.writeBits(LPC_PRECISION - 1, 4);
+                    writer.writeBits(lpcShift, 4);
+                    for (int j = 0; j < LPC_ORDER; j++) {
+                        writer.writeBits(quantized[j] & ((1L << LPC_PRECISION) - 1), LPC_PRECISION);
+                    }
+                    writeWarmupAndResidual(s, residual, LPC_ORDER, n);
+                    return;
+                }
+            }
+            writer.writeBits(0, 1);
+            writer.writeBits(bestOrder, 3);
+            writeWarmupAndResidual(s, bestResidual, bestOrder, n);
+        }
+
+        private void writeWarmupAndResidual(int[] s, int[] r, int order, int n) throws IOException {
+            for (int i = 0; i < order; i++) {
+                writer.writeBits(s[i] & 0xFFFF, 16);
+            }
+            for (int start = order; start < n; start += PARTITION_SIZE) {
+                int end = Math.min(n, start + PARTITION_SIZE);
+                long sum = 0;
+                for (int i = start; i < end; i++) {
+                    sum += zigzag(r[i]);
+                }
+                int k = riceParameter(sum, end - start);
+                writer.writeBits(k, 5);
+                for (int i = start; i < end; i++) {
+                    writer.writeRice(zigzag(r[i]), k);
+                }
+            }
+        }
+
+        /**
+         * 计算并量化LPC系数（加窗自相关 + Levinson-Durbin）
+         * @return 量化移位数，无法得到稳定的预测器时返回 -1
+         */
+        private int computeLpc(int[] s, int n) {
+            double[] x = windowed;
+            for (int i = 0; i < n; i++) {
+                x[i] = window(i, n) * s[i];
+            }
+            for (int lag = 0; lag <= LPC_ORDER; lag++) {
+                double sum = 0;
+                for (int i = lag; i < n; i++) {
+                    sum += x[i] * x[i - lag];
+                }
+                autocorrelation[lag] = sum;
+            }
+            if (autocorrelation[0] == 0) {
+                return -1;
+            }
+            double error = autocorrelation[0];
+            double[] a = lpc;
+            double[] tmp = lpcScratch;
+            Arrays.fill(a, 0);
+            for (int i = 0; i < LPC_ORDER; i++) {
+                double acc = autocorrelation[i + 1];
+                for (int j = 0; j < i; j++) {
+                    acc -= a[j] * autocorrelation[i - j];
+                }
+                double k = acc / error;
+                System.arraycopy(a, 0, tmp, 0, i);
+                for (int j = 0; j < i; j++) {
+                    a[j] = tmp[j] - k * tmp[i - 1 - j];
+                }
+                a[i] = k;
+                error *= 1 - k * k;
+                if (error <= 0) {
+                    return -1;
+                }
+            }
+
+            double max = 0;
+            for (double c : a) {
+                max = Math.max(max, Math.abs(c));
+            }
+            if (max == 0) {
+                return -1;
+            }
+            int log2 = Math.getExponent(max) + 1;
+            int shift = Math.min(15, Math.max(0, LPC_PRECISION - 1 - log2));
+            int limit = (1 << (LPC_PRECISION - 1)) - 1;
+            double carry = 0;
+            for (int j = 0; j < LPC_ORDER; j++) {
+                // 误差反馈，减少量化带来的累积偏差
+                double value = a[j] * (1 << shift) + carry;
+                long q = Math.round(value);
+                q = Math.max(-limit - 1, Math.min(limit, q));
+                carry = value - q;
+                quantized[j] = (int) q;
+            }
+            return shift;
+        }
+
+        /**
+         * 按分区均值估算最优Rice参数，再比较相邻参数的实际位数
+         * 参数为k时总位数 = 商之和 + 数量 * (k + 1)，商之和近似为 sum >> k
+         */
+        private static int riceParameter(long sum, int count) {
+            long mean = sum / count;
+            int estimate = mean == 0 ? 0 : 63 - Long.numberOfLeadingZeros(mean);
+            int best = 0;
+            long bestBits = Long.MAX_VALUE;
+            for (int k = Math.max(0, estimate - 1); k <= Math.min(MAX_RICE_PARAMETER, estimate + 1); k++) {
+                long bits = (sum >> k) + (long) count * (k + 1);
+                if (bits < bestBits) {
+                    bestBits = bits;
+                    best = k;
+                }
+            }
+            return best;
+        }
+
+        private static double window(int i, int n) {
+            // Welch窗
+            double x = (2.0 * i - (n - 1)) / (n + 1);
+            return 1 - x * x;
+        }
+
+        private static long zigzag(int r) {
+            return ((long) r << 1) ^ (r >> 31);
+        }
+
+        private static void writeInt(byte[] buffer, int offset, int value) {
+            buffer[offset] = (byte) (value >>> 24);
+            buffer[offset + 1] = (byte) (value >>> 16);
+            buffer[offset + 2] = (byte) (value >>> 8);
+            buffer[offset + 3] = (byte) value;
+        }
+    }
+
+    private static final class BitWriter {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[8192];
+        private int position = 0;
+        private long bits = 0;
+        private int bitCount = 0;
+
+        private BitWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void writeBits(long value, int n) throws IOException {
+            // bitCount < 8 时才进入，最多累积 7 + 32 位
+            bits = (bits << n) | (value & ((1L << n) - 1));
+            bitCount += n;
+            while (bitCount >= 8) {
+                bitCount -= 8;
+                put((int) (bits >>> bitCount));
+            }
+            bits &= (1L << bitCount) - 1;
+        }
+
+        private void writeRice(long u, int k) throws IOException {
+            long q = u >>> k;
+            while (q >= 32) {
+                writeBits(0, 32);
+                q -= 32;
+            }
+            writeBits(1, (int) q + 1);
+            if (k > 0) {
+                writeBits(u, k);
+            }
+        }
+
+        private void put(int b) throws IOException {
+            if (position == buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        private void close() throws IOException {
+            if (bitCount > 0) {
+                put((int) (bits << (8 - bitCount)));
+                bitCount = 0;
+                bits = 0;
+            }
+            out.write(buffer, 0, position);
+            position = 0;
+            out.close();
+        }
+    }
+
+    private static final class BitReader {
+        private final InputStream in;
+        private final byte[] buffer = new byte[8192];
+        private int position = 0;
+        private int limit = 0;
+        private long bits = 0;
+        private int bitCount = 0;
+
+        private BitReader(InputStream in) {
+            this.in = in;
+        }
+
+        private long readBits(int n) throws IOException {
+            while (bitCount < n) {
+                bits = (bits << 8) | next();
+                bitCount += 8;
+            }
+            bitCount -= n;
+            long value = (bits >>> bitCount) & ((1L << n) - 1);
+            bits &= (1L << bitCount) - 1;
+            return value;
+        }
+
+        private int readSigned(int n) throws IOException {
+            long value = readBits(n);
+            return (int) (value << (64 - n) >> (64 - n));
+        }
+
+        private long readRice(int k) throws IOException {
+            // 一元编码的商：整字节的0直接跳过
+            long q = 0;
+            while (true) {
+                if (bitCount == 0) {
+                    bits = next();
+                    bitCount = 8;
+                }
+                if (bits == 0) {
+                    q += bitCount;
+                    bitCount = 0;
+                    continue;
+                }
+                int zeros = bitCount - (64 - Long.numberOfLeadingZeros(bits));
+                q += zeros;
+                bitCount -= zeros + 1;
+                bits &= (1L << bitCount) - 1;
+                break;
+            }
+            return k == 0 ? q : (q << k) | readBits(k);
+        }
+
+        private int next() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("归档数据不完整");
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+    }
+}
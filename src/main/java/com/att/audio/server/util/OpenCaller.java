@@ -1,11 +1,12 @@
 package com.att.audio.server.util;
 
-import com.alibaba.fastjson.JSON;
 import lombok.Builder;
 import lombok.Data;
 import com.att.audio.server.request.OpenReq;
 import okhttp3.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @Data
 @Builder
 public class OpenCaller {
@@ -13,74 +14,41 @@ public class OpenCaller {
     private String apiKey;
     private String apiSecret;
     private OkHttpClient client;
+    private Deadline deadline; // 所属任务的截止时间，为空时不限制
 
     public OpenResp<OpenResp.CreateData> create(OpenReq.Create req) {
-        try {
-            String reqUrl = ulrPrefix + "/ost/pro_create";
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json;charset=utf-8"), JSON.toJSONString(req));
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "application/json").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest", result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-            Response resp = client.newCall(request).execute();
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), OpenResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%s)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), OpenResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(jsonRequest("/ost/pro_create", req));
+    }
+
+    public CompletableFuture<OpenResp<OpenResp.CreateData>> createAsync(OpenReq.Create req) {
+        return enqueue(jsonRequest("/ost/pro_create", req));
     }
 
     public OpenResp<OpenResp.QueryData> query(OpenReq.Query req) {
-        try {
-            String reqUrl = ulrPrefix + "/ost/query";
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json;charset=utf-8"), JSON.toJSONString(req));
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "application/json").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest", result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-            Response resp = client.newCall(request).execute();
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), OpenResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%s)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), OpenResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(jsonRequest("/ost/query", req));
+    }
+
+    public CompletableFuture<OpenResp<OpenResp.QueryData>> queryAsync(OpenReq.Query req) {
+        return enqueue(jsonRequest("/ost/query", req));
     }
 
     public OpenResp<OpenResp.CancelData> cancel(OpenReq.Cancel req) {
-        try {
-            String reqUrl = ulrPrefix + "/ost/cancel";
-            RequestBody requestBody = RequestBody.create(MediaType.parse("application/json;charset=utf-8"), JSON.toJSONString(req));
-            Authentication.AUthResult result = Authentication.auth(Authentication.AuthParam.builder()
-                    .apiKey(apiKey).apiSecret(apiSecret).method(Authentication.Method.POST).reqUrl(reqUrl).build());
-            Request request = new Request.Builder().url(reqUrl).
-                    addHeader("Content-Type", "application/json").
-                    addHeader("Date", result.getDate()).
-                    addHeader("Digest", result.getDigest()).
-                    addHeader("Authorization", result.getAuthorization()).
-                    post(requestBody).build();
-            Response resp = client.newCall(request).execute();
-            System.err.println(resp);
-            if (resp.code() != 200) {
-                System.out.println(JSON.parseObject(resp.body().bytes(), OpenResp.class).toString());
-                // throw new RuntimeException(String.format("http response is not 200(%s)", resp.code()));
-            }
-            return JSON.parseObject(resp.body().bytes(), OpenResp.class);
-        } catch (Exception ex) {
-            throw new RuntimeException(ex);
-        }
+        return execute(jsonRequest("/ost/cancel", req));
+    }
+
+    public CompletableFuture<OpenResp<OpenResp.CancelData>> cancelAsync(OpenReq.Cancel req) {
+        return enqueue(jsonRequest("/ost/cancel", req));
+    }
+
+    private Request jsonRequest(String path, Object req) {
+        return XfyunHttp.signedPost(ulrPrefix + path, "application/json", XfyunHttp.json(req), apiKey, apiSecret);
+    }
+
+    private <T> OpenResp<T> execute(Request request) {
+        return XfyunHttp.execute(client, deadline, request, OpenResp.class);
+    }
+
+    private <T> CompletableFuture<OpenResp<T>> enqueue(Request request) {
+        return XfyunHttp.enqueue(client, deadline, request, OpenResp.class);
     }
 }
@@ -4,7 +4,7 @@ import com.alibaba.fastjson.annotation.JSONField;
 import lombok.Data;
 
 @Data
-public class OpenResp<T> {
+public class OpenResp<T> implements XfyunResp {
     private int code;
     private String sid;
     private T data;
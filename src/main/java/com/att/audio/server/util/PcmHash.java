@@ -0,0 +1,65 @@
+package com.att.audio.server.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * PCM内容哈希，用于识别完全相同的音频
+ * 取 SHA-256 摘要的前128位作为转写缓存的键：不同内容发生碰撞的概率可以忽略，键长也足够短
+ */
+public class PcmHash {
+    private static final int DIGEST_BYTES = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest sha256;
+
+    public PcmHash() {
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public PcmHash update(byte[] data, int offset, int len) {
+        sha256.update(data, offset, len);
+        return this;
+    }
+
+    /**
+     * @return 32位十六进制字符串（SHA-256 的前128位）
+     */
+    public String digest() {
+        byte[] hash = sha256.digest();
+        char[] hex = new char[DIGEST_BYTES * 2];
+        for (int i = 0; i < DIGEST_BYTES; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * 计算WAV文件中PCM数据（跳过44字节文件头）的哈希
+     * @param wavFile WAV文件
+     * @return 与同样PCM内容的内存分段相同的摘要
+     * @throws IOException 如果读取文件失败
+     */
+    public static String ofWavFile(Path wavFile) throws IOException {
+        PcmHash hash = new PcmHash();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(wavFile, StandardOpenOption.READ)) {
+            channel.position(Math.min(WavUtil.HEADER_SIZE, channel.size()));
+            while (channel.read(buffer) > 0) {
+                hash.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return hash.digest();
+    }
+}
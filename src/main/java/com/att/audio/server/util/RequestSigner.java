@@ -0,0 +1,138 @@
+package com.att.audio.server.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 讯飞接口请求签名器，与 {@link Authentication#auth} 生成相同的签名
+ * 按密钥复用签名器实例，每个线程复用已初始化的 Mac，按接口缓存解析后的 host/path，
+ * 同一秒内同一接口的签名结果直接复用
+ */
+public class RequestSigner {
+    private static final String HMAC_ALGORITHM = "hmacsha256";
+    private static final DateTimeFormatter DATE_FORMATTER =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+    private static final String EMPTY_BODY_DIGEST = "SHA-256=" + emptyBodyDigest();
+    private static final Map<String, RequestSigner> SIGNERS = new ConcurrentHashMap<>();
+
+    private final String apiKey;
+    private final ThreadLocal<Mac> mac;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private RequestSigner(String apiKey, String apiSecret) {
+        this.apiKey = apiKey;
+        SecretKeySpec key = new SecretKeySpec(apiSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("hmac init is error", e);
+            }
+        });
+    }
+
+    /**
+     * 获取指定密钥的签名器，相同密钥共享同一实例
+     * @param apiKey api key
+     * @param apiSecret api secret
+     * @return 签名器
+     */
+    public static RequestSigner of(String apiKey, String apiSecret) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            throw new IllegalArgumentException("api key must not been empty!");
+        }
+        if (apiSecret == null || apiSecret.isEmpty()) {
+            throw new IllegalArgumentException("api secret must not been empty!");
+        }
+        return SIGNERS.computeIfAbsent(apiKey + '\n' + apiSecret, k -> new RequestSigner(apiKey, apiSecret));
+    }
+
+    /**
+     * 为请求生成签名头（请求体摘要固定为空内容的摘要，与原实现一致）
+     * @param method 请求方法
+     * @param reqUrl 请求地址
+     * @return 签名结果
+     */
+    public Authentication.AUthResult sign(Authentication.Method method, String reqUrl) {
+        if (method == null) {
+            throw new IllegalArgumentException("method must not been empty!");
+        }
+        if (reqUrl == null || reqUrl.isEmpty()) {
+            throw new IllegalArgumentException("request url must not been empty!");
+        }
+        Endpoint endpoint = endpoints.computeIfAbsent(method + " " + reqUrl, k -> new Endpoint(method, reqUrl));
+        long second = System.currentTimeMillis() / 1000;
+        Signed signed = endpoint.lastSigned;
+        if (signed == null || signed.second != second) {
+            signed = new Signed(second, endpoint.sign(second));
+            endpoint.lastSigned = signed;
+        }
+        return signed.result;
+    }
+
+    private static String emptyBodyDigest() {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Endpoint {
+        private final String hostLine;
+        private final String requestLine;
+        private volatile Signed lastSigned;
+
+        private Endpoint(Authentication.Method method, String reqUrl) {
+            URL url;
+            try {
+                url = new URL(reqUrl);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("request url is invalid: " + reqUrl, e);
+            }
+            StringBuilder builder = new StringBuilder("host: ").append(url.getHost());
+            if (url.getPort() != -1) {
+                builder.append(":").append(url.getPort());
+            }
+            this.hostLine = builder.append("\n").toString();
+            this.requestLine = "\n" + method + " " + url.getPath() + " HTTP/1.1\ndigest: " + EMPTY_BODY_DIGEST;
+        }
+
+        private Authentication.AUthResult sign(long second) {
+            String date = DATE_FORMATTER.format(Instant.ofEpochSecond(second));
+            String signature = hostLine + "date: " + date + requestLine;
+            byte[] hmac = mac.get().doFinal(signature.getBytes(StandardCharsets.UTF_8));
+            Authentication.AUthResult result = new Authentication.AUthResult();
+            result.setDate(date);
+            result.setDigest(EMPTY_BODY_DIGEST);
+            result.setAuthorization("hmac api_key=\"" + apiKey
+                    + "\", algorithm=\"hmac-sha256\", headers=\"host date request-line digest\", signature=\""
+                    + Base64.getEncoder().encodeToString(hmac) + "\"");
+            return result;
+        }
+    }
+
+    private static class Signed {
+        private final long second;
+        private final Authentication.AUthResult result;
+
+        private Signed(long second, Authentication.AUthResult result) {
+            this.second = second;
+            this.result = result;
+        }
+    }
+}
@@ -4,6 +4,8 @@ package com.att.audio.server.util;
  * WAV文件工具类
  */
 public class WavUtil {
+    public static final int HEADER_SIZE = 44;
+
     /**
      * 创建WAV文件头
      * @param dataLength PCM数据长度
@@ -14,7 +16,7 @@ public class WavUtil {
      */
     public static byte[] createWavHeader(int dataLength, int sampleRate, 
             int bitsPerSample, int channels) {
-        byte[] header = new byte[44];
+        byte[] header = new byte[HEADER_SIZE];
         
         // RIFF header
         writeString(header, 0, "RIFF"); // ChunkID
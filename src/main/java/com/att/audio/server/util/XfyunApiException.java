@@ -0,0 +1,84 @@
+package com.att.audio.server.util;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 讯飞接口调用失败
+ * 网络异常、5xx 和 429 视为可重试（上游暂时不可用），其余业务错误重试也不会成功
+ */
+public class XfyunApiException extends RuntimeException {
+    private final int httpStatus;
+    private final int code;
+    private final String sid;
+    private final boolean retryable;
+
+    public XfyunApiException(String message, int httpStatus, int code, String sid, boolean retryable) {
+        super(message);
+        this.httpStatus = httpStatus;
+        this.code = code;
+        this.sid = sid;
+        this.retryable = retryable;
+    }
+
+    public XfyunApiException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.httpStatus = 0;
+        this.code = 0;
+        this.sid = null;
+        this.retryable = retryable;
+    }
+
+    /**
+     * 非200响应或业务错误码
+     */
+    static XfyunApiException response(String url, int httpStatus, int code, String sid, String message) {
+        boolean retryable = httpStatus >= 500 || httpStatus == 429;
+        return new XfyunApiException(String.format("讯飞接口调用失败，url：%s，http：%d，code：%d，sid：%s，message：%s",
+                url, httpStatus, code, sid, message), httpStatus, code, sid, retryable);
+    }
+
+    static XfyunApiException io(String url, IOException cause) {
+        return new XfyunApiException("讯飞接口请求失败，url：" + url, cause, true);
+    }
+
+    public static XfyunApiException deadlineExceeded(String step) {
+        return new XfyunApiException("已超过任务截止时间，放弃" + step, 0, 0, null, false);
+    }
+
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getSid() {
+        return sid;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    /**
+     * @return 异常（可能被 CompletableFuture 包装）是否值得重试
+     */
+    public static boolean isRetryable(Throwable ex) {
+        Throwable cause = unwrap(ex);
+        if (cause instanceof XfyunApiException) {
+            return ((XfyunApiException) cause).isRetryable();
+        }
+        return cause instanceof IOException;
+    }
+
+    public static Throwable unwrap(Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
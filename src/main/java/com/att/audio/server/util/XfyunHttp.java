@@ -0,0 +1,114 @@
+package com.att.audio.server.util;
+
+import com.alibaba.fastjson.JSON;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileCaller 与 OpenCaller 共用的请求签名、同步/异步调用和响应解析
+ * 网络异常、非200、非JSON或业务码非0的响应统一转为 XfyunApiException
+ */
+final class XfyunHttp {
+    private static final MediaType JSON_UTF8 = MediaType.parse("application/json;charset=utf-8");
+
+    private XfyunHttp() {
+    }
+
+    static RequestBody json(Object req) {
+        return RequestBody.create(JSON_UTF8, JSON.toJSONString(req));
+    }
+
+    static Request signedPost(String reqUrl, String contentType, RequestBody requestBody,
+                              String apiKey, String apiSecret) {
+        Authentication.AUthResult result = RequestSigner.of(apiKey, apiSecret).sign(Authentication.Method.POST, reqUrl);
+        return new Request.Builder().url(reqUrl).
+                addHeader("Content-Type", contentType).
+                addHeader("Date", result.getDate()).
+                addHeader("Digest", result.getDigest()).
+                addHeader("Authorization", result.getAuthorization()).
+                post(requestBody).build();
+    }
+
+    /**
+     * @param type 响应体类型（FileResp 或 OpenResp）
+     */
+    static <R extends XfyunResp> R execute(OkHttpClient client, Deadline deadline, Request request, Class<?> type) {
+        Call call = newCall(client, deadline, request);
+        try (Response resp = call.execute()) {
+            return parse(resp, type);
+        } catch (IOException ex) {
+            throw XfyunApiException.io(request.url().toString(), ex);
+        }
+    }
+
+    static <R extends XfyunResp> CompletableFuture<R> enqueue(OkHttpClient client, Deadline deadline,
+                                                              Request request, Class<?> type) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Call call;
+        try {
+            call = newCall(client, deadline, request);
+        } catch (XfyunApiException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(XfyunApiException.io(request.url().toString(), e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response resp) {
+                try (Response r = resp) {
+                    future.complete(parse(r, type));
+                } catch (IOException ex) {
+                    future.completeExceptionally(XfyunApiException.io(request.url().toString(), ex));
+                } catch (Exception ex) {
+                    future.completeExceptionally(ex);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 创建调用，整个调用（连接、发送、读取）的超时不超过任务剩余时间
+     */
+    private static Call newCall(OkHttpClient client, Deadline deadline, Request request) {
+        Call call = client.newCall(request);
+        if (deadline != null && deadline.isBounded()) {
+            long remaining = deadline.remainingMillis();
+            if (remaining <= 0) {
+                throw XfyunApiException.deadlineExceeded(request.url().encodedPath());
+            }
+            call.timeout().timeout(remaining, TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends XfyunResp> R parse(Response resp, Class<?> type) throws IOException {
+        String url = resp.request().url().toString();
+        R body;
+        try {
+            body = (R) JSON.parseObject(resp.body().bytes(), type);
+        } catch (RuntimeException e) {
+            // 网关错误页等非JSON响应
+            body = null;
+        }
+        if (resp.code() != 200 || body == null || body.getCode() != 0) {
+            throw XfyunApiException.response(url, resp.code(), body == null ? -1 : body.getCode(),
+                    body == null ? null : body.getSid(), body == null ? resp.message() : body.getMessage());
+        }
+        return body;
+    }
+}
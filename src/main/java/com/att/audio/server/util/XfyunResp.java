@@ -0,0 +1,12 @@
+package com.att.audio.server.util;
+
+/**
+ * 讯飞接口响应的公共字段，供统一判断调用是否成功
+ */
+interface XfyunResp {
+    int getCode();
+
+    String getSid();
+
+    String getMessage();
+}
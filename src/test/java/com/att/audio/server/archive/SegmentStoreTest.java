@@ -0,0 +1,358 @@
+package com.att.audio.server.archive;
+
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.ChunkPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 追加、读回、崩溃后截断索引、滚动和过期清理，以及清单缺失、损坏或落后时的恢复
+ */
+class SegmentStoreTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path savePath;
+
+    private final ChunkPool pool = new ChunkPool(1024, 16);
+    private final List<SegmentStore> opened = new ArrayList<>();
+    private AudioConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new AudioConfig();
+        config.setSavePath(savePath.toString());
+        config.setSampleRate(16000);
+        config.setBitsPerSample(16);
+        config.setChannels(1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (SegmentStore store : opened) {
+            store.close();
+        }
+    }
+
+    @Test
+    void readsBackWavAndLossless() throws IOException {
+        SegmentStore store = open();
+        AudioSegment wav = segment(store, "a", System.currentTimeMillis(), 4000);
+        AudioSegment lpc = segment(store, "b", System.currentTimeMillis(), 5001);
+        store.append(wav, false);
+        store.append(lpc, true);
+
+        assertReadsBack(store, wav);
+        assertReadsBack(store, lpc);
+        store.close();
+        // 重新打开后仍能按文件名读回
+        SegmentStore reopened = open();
+        assertReadsBack(reopened, wav);
+        assertReadsBack(reopened, lpc);
+        assertFalse(reopened.exists(SegmentStore.segmentName("c", wav.getStartTime(), wav.getSequence())));
+        assertFalse(reopened.exists("not-a-segment.wav"));
+    }
+
+    @Test
+    void truncatesIndexEntriesPastDataEnd() throws IOException {
+        SegmentStore store = open();
+        long now = System.currentTimeMillis();
+        AudioSegment first = segment(store, "a", now, 3000);
+        AudioSegment second = segment(store, "a", now, 3000);
+        AudioSegment third = segment(store, "a", now, 3000);
+        store.append(first, false);
+        store.append(second, false);
+        store.append(third, false);
+        // 模拟崩溃：不关闭存储，数据文件只写完了前两个分段和第三个的一部分
+        opened.remove(store);
+        Path data = savePath.resolve("archive").resolve("archive-00000001.dat");
+        Path index = data.resolveSibling("archive-00000001.idx");
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            channel.truncate(first.getWavLength() + second.getWavLength() + 10);
+        }
+
+        SegmentStore reopened = open();
+        assertReadsBack(reopened, first);
+        assertReadsBack(reopened, second);
+        assertFalse(reopened.exists(name(third)));
+        assertEquals(2L * SegmentStore.ENTRY_SIZE, Files.size(index));
+    }
+
+    @Test
+    void rollsBySize() throws IOException {
+        config.setArchiveFileMaxBytes(1);
+        SegmentStore store = open();
+        List<AudioSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            AudioSegment segment = segment(store, "a", System.currentTimeMillis(), 2000);
+            store.append(segment, true);
+            segments.add(segment);
+        }
+        assertEquals(3, dataFiles());
+        for (AudioSegment segment : segments) {
+            assertReadsBack(store, segment);
+        }
+    }
+
+    @Test
+    void rollsByAge() throws Exception {
+        config.setArchiveFileMaxAge(Duration.ofMillis(50));
+        SegmentStore store = open();
+        store.append(segment(store, "a", System.currentTimeMillis(), 2000), false);
+        store.append(segment(store, "a", System.currentTimeMillis(), 2000), false);
+        assertEquals(1, dataFiles());
+        Thread.sleep(80);
+        store.append(segment(store, "a", System.currentTimeMillis(), 2000), false);
+        assertEquals(2, dataFiles());
+    }
+
+    @Test
+    void purgesWholeExpiredFiles() throws IOException {
+        config.setArchiveFileMaxBytes(1);
+        config.setArchiveRetention(Duration.ofHours(1));
+        SegmentStore store = open();
+        long now = System.currentTimeMillis();
+        AudioSegment old = segment(store, "a", now - 3 * HOUR, 2000);
+        AudioSegment recent = segment(store, "a", now - 10_000, 2000);
+        store.append(old, false);
+        assertEquals(1, dataFiles());
+        // 正在写入的文件即使过期也不删除
+        assertEquals(0, store.purgeExpired(now));
+
+        // 滚动时清理：第一个文件已过期，整个删除
+        store.append(recent, false);
+        assertEquals(1, dataFiles());
+        assertFalse(store.exists(name(old)));
+        assertReadsBack(store, recent);
+        assertEquals(0, store.purgeExpired(now));
+    }
+
+    @Test
+    void enforcesRetentionWithoutNewAppends() throws IOException {
+        config.setArchiveFileMaxAge(Duration.ofHours(1));
+        config.setArchiveRetention(Duration.ofHours(1));
+        SegmentStore store = open();
+        long now = System.currentTimeMillis();
+        AudioSegment segment = segment(store, "a", now - 3 * HOUR, 2000);
+        store.append(segment, false);
+
+        // 写入时长未到，正在写入的文件不关闭也不删除
+        assertEquals(0, store.enforceRetention(now));
+        assertTrue(store.exists(name(segment)));
+        // 空闲超过最长写入时长后关闭并删除
+        assertEquals(1, store.enforceRetention(now + 2 * HOUR));
+        assertEquals(0, dataFiles());
+        store.append(segment(store, "a", now, 2000), false);
+        assertEquals(1, dataFiles());
+    }
+
+    @Test
+    void retentionTimerRunsOnIdleServer() throws Exception {
+        config.setArchiveFileMaxAge(Duration.ofMillis(10));
+        config.setArchiveRetention(Duration.ofMillis(10));
+        SegmentStore store = open();
+        store.append(segment(store, "a", System.currentTimeMillis() - HOUR, 2000), false);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dataFiles() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, dataFiles());
+    }
+
+    @Test
+    void findsSegmentsAcrossDaylightSavingChange() throws IOException {
+        TimeZone previous = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            SegmentStore store = open();
+            // 2024-11-03 回拨：本地时间 01:30 先后出现两次（EDT、EST）
+            long daylight = Instant.parse("2024-11-03T05:30:00Z").toEpochMilli();
+            long standard = Instant.parse("2024-11-03T06:30:00Z").toEpochMilli();
+            AudioSegment first = segment(store, "a", daylight, 2000);
+            AudioSegment second = segment(store, "a", standard, 2000);
+            store.append(first, false);
+            store.append(second, false);
+
+            assertReadsBack(store, first);
+            assertReadsBack(store, second);
+            // 旧版本按本地时间生成的文件名，两个时刻的名字中时间相同
+            DateTimeFormatter local = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+            for (AudioSegment segment : new AudioSegment[]{first, second}) {
+                String legacy = String.format("audio_a_%s_%03d.wav", LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(segment.getStartTime()), ZoneId.systemDefault()).format(local),
+                        segment.getSequence());
+                assertTrue(legacy.contains("20241103_013000"), legacy);
+                assertTrue(store.exists(legacy), legacy);
+            }
+        } finally {
+            TimeZone.setDefault(previous);
+        }
+    }
+
+    @Test
+    void rebuildsFromIndexesWhenManifestIsMissing() throws IOException {
+        List<AudioSegment> segments = appendAcrossFiles(3);
+        opened.get(0).close();
+        Files.delete(manifest());
+
+        SegmentStore reopened = open();
+        for (AudioSegment segment : segments) {
+            assertReadsBack(reopened, segment);
+        }
+        assertTrue(reopened.nextSequence() > segments.get(2).getSequence());
+        assertTrue(Files.exists(manifest()));
+    }
+
+    @Test
+    void rebuildsFromIndexesWhenManifestIsCorrupt() throws IOException {
+        List<AudioSegment> segments = appendAcrossFiles(3);
+        opened.get(0).close();
+        for (String content : new String[]{"version=1\nsequenceCeiling=abc\n", "version=1\nfile.1=1,2\n",
+                "version=9\nsequenceCeiling=5\n", "\u0000\u0001garbage"}) {
+            Files.write(manifest(), content.getBytes(StandardCharsets.ISO_8859_1));
+            SegmentStore reopened = open();
+            for (AudioSegment segment : segments) {
+                assertReadsBack(reopened, segment);
+            }
+            assertTrue(reopened.nextSequence() > segments.get(2).getSequence(), content);
+            reopened.close();
+        }
+    }
+
+    @Test
+    void probesFilesCreatedAfterLastManifestWrite() throws IOException {
+        config.setArchiveFileMaxBytes(1);
+        SegmentStore store = open();
+        AudioSegment first = segment(store, "a", System.currentTimeMillis(), 2000);
+        store.append(first, false);
+        byte[] stale = Files.readAllBytes(manifest());
+        AudioSegment second = segment(store, "a", System.currentTimeMillis(), 2000);
+        AudioSegment third = segment(store, "a", System.currentTimeMillis(), 2000);
+        store.append(second, false);
+        store.append(third, false);
+        // 模拟崩溃：清单停留在第一个文件创建时，之后的两个文件不在目录中
+        opened.remove(store);
+        Files.write(manifest(), stale);
+
+        SegmentStore reopened = open();
+        assertReadsBack(reopened, first);
+        assertReadsBack(reopened, second);
+        assertReadsBack(reopened, third);
+        assertTrue(reopened.nextSequence() > third.getSequence());
+    }
+
+    @Test
+    void neverReusesSequencesAfterCrash() throws IOException {
+        SegmentStore store = open();
+        long last = 0;
+        // 跨过几次预留，最后一批只用了一部分
+        for (int i = 0; i < SegmentStore.SEQUENCE_BLOCK * 3 + 17; i++) {
+            long sequence = store.nextSequence();
+            assertTrue(sequence > last);
+            last = sequence;
+        }
+        // 模拟崩溃：不关闭，也不等后台预留完成
+        opened.remove(store);
+
+        SegmentStore reopened = open();
+        assertTrue(reopened.nextSequence() > last);
+    }
+
+    @Test
+    void reservesNextBlockInBackground() throws Exception {
+        SegmentStore store = open();
+        long ceiling = ArchiveManifest.load(manifest()).sequenceCeiling;
+        // 用过一半后由后台线程把上限推进一整批，分配序号的线程不写清单
+        long sequence;
+        do {
+            sequence = store.nextSequence();
+        } while (sequence < ceiling - SegmentStore.SEQUENCE_BLOCK / 2);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (ArchiveManifest.load(manifest()).sequenceCeiling == ceiling && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(ceiling + SegmentStore.SEQUENCE_BLOCK, ArchiveManifest.load(manifest()).sequenceCeiling);
+    }
+
+    private List<AudioSegment> appendAcrossFiles(int count) throws IOException {
+        config.setArchiveFileMaxBytes(1);
+        SegmentStore store = open();
+        List<AudioSegment> segments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AudioSegment segment = segment(store, "a", System.currentTimeMillis(), 2000);
+            store.append(segment, true);
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    private Path manifest() {
+        return savePath.resolve("archive").resolve("manifest.properties");
+    }
+
+    private SegmentStore open() throws IOException {
+        SegmentStore store = new SegmentStore(config);
+        opened.add(store);
+        return store;
+    }
+
+    private AudioSegment segment(SegmentStore store, String sessionId, long startTime, int bytes) throws IOException {
+        byte[] pcm = new byte[bytes];
+        new Random(bytes).nextBytes(pcm);
+        long sequence = store.nextSequence();
+        AudioSegment segment = new AudioSegment(SegmentStore.segmentName(sessionId, startTime, sequence), sessionId,
+                sequence, startTime, config.getSampleRate(), config.getBitsPerSample(), config.getChannels(), pool);
+        List<ChunkPool.Chunk> chunks = new ArrayList<>();
+        pool.readFully(new ByteArrayInputStream(pcm), chunks);
+        for (ChunkPool.Chunk chunk : chunks) {
+            segment.append(chunk);
+        }
+        return segment;
+    }
+
+    private static String name(AudioSegment segment) {
+        return SegmentStore.segmentName(segment.getSessionId(), segment.getStartTime(), segment.getSequence());
+    }
+
+    private static void assertReadsBack(SegmentStore store, AudioSegment segment) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        segment.writeWav(expected);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        assertTrue(store.readWav(name(segment), actual), name(segment));
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray(), name(segment));
+    }
+
+    private long dataFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(savePath.resolve("archive"))) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(SegmentStore.DATA_SUFFIX)).count();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.att.audio.server.iflytek;
+
+import com.att.audio.server.request.FileReq;
+import com.att.audio.server.util.Deadline;
+import com.att.audio.server.util.FileCaller;
+import com.att.audio.server.util.FileResp;
+import com.att.audio.server.util.XfyunApiException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分块按配置的大小切分，经 XfyunCallGuard 调用：只重试可重试的错误，熔断时不再发出请求
+ */
+class ParallelSliceUploaderTest {
+    @TempDir
+    Path directory;
+
+    private final Map<Integer, Long> sliceLengths = new ConcurrentHashMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void splitsByConfiguredSliceSize() throws Exception {
+        File file = file(25);
+        upload(file, 10, new XfyunCallGuard(3, 1, 1, 5, 60_000), 3, sliceId -> null).get(5, TimeUnit.SECONDS);
+        assertEquals(Map.of(1, 10L, 2, 10L, 3, 5L), sliceLengths);
+    }
+
+    @Test
+    void retriesRetryableFailures() throws Exception {
+        AtomicInteger failures = new AtomicInteger(2);
+        upload(file(10), 10, new XfyunCallGuard(3, 1, 1, 5, 60_000), 3,
+                sliceId -> failures.getAndDecrement() > 0 ? error(503) : null).get(5, TimeUnit.SECONDS);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> upload(file(10), 10,
+                new XfyunCallGuard(3, 1, 1, 5, 60_000), 3, sliceId -> error(401)).get(5, TimeUnit.SECONDS));
+        assertEquals(401, ((XfyunApiException) XfyunApiException.unwrap(e)).getHttpStatus());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void stopsWhenBreakerOpens() {
+        XfyunCallGuard guard = new XfyunCallGuard(3, 1, 1, 2, 60_000);
+        assertThrows(ExecutionException.class, () -> upload(file(10), 10, guard, 5,
+                sliceId -> error(502)).get(5, TimeUnit.SECONDS));
+        // 连续两次失败后熔断，剩余的重试直接失败，不再发出请求
+        assertEquals(2, calls.get());
+        assertEquals(XfyunCallGuard.State.OPEN, guard.getState());
+        assertTrue((Long) guard.getStats().get("rejected") > 0);
+    }
+
+    @Test
+    void failsAfterDeadline() throws InterruptedException {
+        Deadline deadline = Deadline.after(1);
+        Thread.sleep(10);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> new ParallelSliceUploader(
+                caller(sliceId -> null), new XfyunCallGuard(3, 1, 1, 5, 60_000), deadline, "app", 10, 2, 3)
+                .upload(file(30), "upload").get(5, TimeUnit.SECONDS));
+        assertTrue(XfyunApiException.unwrap(e).getMessage().contains("截止时间"));
+        assertEquals(0, calls.get());
+    }
+
+    private CompletableFuture<Void> upload(File file, int sliceSize, XfyunCallGuard guard, int maxRetries,
+                                           Function<Integer, XfyunApiException> failure) {
+        return new ParallelSliceUploader(caller(failure), guard, Deadline.none(), "app", sliceSize, 2, maxRetries)
+                .upload(file, "upload");
+    }
+
+    private FileCaller caller(Function<Integer, XfyunApiException> failure) {
+        FileCaller caller = mock(FileCaller.class);
+        when(caller.filePartUploadAsync(any())).thenAnswer(invocation -> {
+            FileReq.PartUpload req = invocation.getArgument(0);
+            calls.incrementAndGet();
+            XfyunApiException error = failure.apply(req.getSliceId());
+            if (error != null) {
+                return CompletableFuture.failedFuture(error);
+            }
+            sliceLengths.put(req.getSliceId(), req.getBody().contentLength());
+            return CompletableFuture.completedFuture(new FileResp<Void>());
+        });
+        return caller;
+    }
+
+    private static XfyunApiException error(int httpStatus) {
+        return new XfyunApiException("http " + httpStatus, httpStatus, -1, null,
+                httpStatus >= 500 || httpStatus == 429);
+    }
+
+    private File file(int length) throws IOException {
+        Path path = directory.resolve("audio-" + length + ".wav");
+        Files.write(path, new byte[length]);
+        return path.toFile();
+    }
+}
@@ -0,0 +1,117 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.VadConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 16kHz单声道、20ms帧：正弦音判为语音，静音和高过零率的白噪声判为非语音，reset 不把上一分段的残留带入新帧
+ */
+class EnergyZeroCrossingVadTest {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int FRAME_SAMPLES = 320;
+
+    private final VoiceActivityDetector vad = new EnergyZeroCrossingVad(audioConfig(), new VadConfig());
+
+    @Test
+    void classifiesToneAsSpeechAndSilenceAsSilence() {
+        VoiceActivityDetector.Analyzer analyzer = vad.newAnalyzer();
+        feed(analyzer, tone(10 * FRAME_SAMPLES, 8000));
+        assertEquals(10, analyzer.getTotalFrames());
+        assertEquals(10, analyzer.getSpeechFrames());
+        assertEquals(0, analyzer.getTrailingSilenceFrames());
+        assertTrue(analyzer.hasSpeech());
+
+        feed(analyzer, new byte[6 * FRAME_SAMPLES * 2]);
+        assertEquals(16, analyzer.getTotalFrames());
+        assertEquals(10, analyzer.getSpeechFrames());
+        assertEquals(6, analyzer.getTrailingSilenceFrames());
+    }
+
+    @Test
+    void silenceAloneHasNoSpeech() {
+        VoiceActivityDetector.Analyzer analyzer = vad.newAnalyzer();
+        feed(analyzer, new byte[25 * FRAME_SAMPLES * 2]);
+        assertEquals(25, analyzer.getTotalFrames());
+        assertEquals(0, analyzer.getSpeechFrames());
+        assertFalse(analyzer.hasSpeech());
+    }
+
+    @Test
+    void loudWhiteNoiseIsRejectedByZeroCrossingRate() {
+        VoiceActivityDetector.Analyzer analyzer = vad.newAnalyzer();
+        byte[] noise = new byte[10 * FRAME_SAMPLES * 2];
+        Random random = new Random(1);
+        for (int i = 0; i < noise.length / 2; i++) {
+            putSample(noise, i, random.nextInt(16000) - 8000);
+        }
+        feed(analyzer, noise);
+        assertEquals(10, analyzer.getTotalFrames());
+        assertEquals(0, analyzer.getSpeechFrames());
+    }
+
+    @Test
+    void unalignedBuffersClassifyLikeAlignedOnes() {
+        byte[] pcm = concat(tone(5 * FRAME_SAMPLES, 8000), new byte[5 * FRAME_SAMPLES * 2]);
+        VoiceActivityDetector.Analyzer analyzer = vad.newAnalyzer();
+        // 奇数长度的分块会把一个采样拆到两次调用中
+        for (int offset = 0; offset < pcm.length; offset += 333) {
+            analyzer.update(pcm, offset, Math.min(333, pcm.length - offset));
+        }
+        assertEquals(10, analyzer.getTotalFrames());
+        assertEquals(5, analyzer.getSpeechFrames());
+        assertEquals(5, analyzer.getTrailingSilenceFrames());
+    }
+
+    @Test
+    void resetDiscardsPartialFrame() {
+        VoiceActivityDetector.Analyzer analyzer = vad.newAnalyzer();
+        // 上一分段末尾留下不足一帧的响亮音频和半个采样
+        byte[] tail = tone(FRAME_SAMPLES - 1, 16000);
+        analyzer.update(tail, 0, tail.length);
+        analyzer.update(new byte[]{0x7F}, 0, 1);
+        analyzer.reset();
+
+        feed(analyzer, new byte[FRAME_SAMPLES * 2]);
+        assertEquals(1, analyzer.getTotalFrames());
+        assertEquals(0, analyzer.getSpeechFrames());
+        assertEquals(1, analyzer.getTrailingSilenceFrames());
+    }
+
+    private static void feed(VoiceActivityDetector.Analyzer analyzer, byte[] pcm) {
+        analyzer.update(pcm, 0, pcm.length);
+    }
+
+    private static byte[] tone(int samples, int amplitude) {
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            putSample(pcm, i, (int) Math.round(amplitude * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE)));
+        }
+        return pcm;
+    }
+
+    private static void putSample(byte[] pcm, int index, int sample) {
+        pcm[index * 2] = (byte) sample;
+        pcm[index * 2 + 1] = (byte) (sample >> 8);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    private static AudioConfig audioConfig() {
+        AudioConfig config = new AudioConfig();
+        config.setSampleRate(SAMPLE_RATE);
+        config.setChannels(1);
+        return config;
+    }
+}
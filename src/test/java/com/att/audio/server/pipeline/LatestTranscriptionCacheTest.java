@@ -0,0 +1,46 @@
+package com.att.audio.server.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 最新结果的ETag由响应内容的摘要决定，If-None-Match 按实体标签逐个精确比较
+ */
+class LatestTranscriptionCacheTest {
+    private final LatestTranscriptionCache.Latest latest =
+            LatestTranscriptionCache.Latest.of("你好", "2026-10-18 10:00:00", 0);
+
+    @Test
+    void etagDependsOnlyOnContent() {
+        assertEquals(latest.getEtag(), LatestTranscriptionCache.Latest.of("你好", "2026-10-18 10:00:00", 1).getEtag());
+        assertNotEquals(latest.getEtag(), LatestTranscriptionCache.Latest.of("你好", "2026-10-18 10:00:01", 0).getEtag());
+        assertNotEquals(latest.getEtag(), LatestTranscriptionCache.Latest.of("您好", "2026-10-18 10:00:00", 0).getEtag());
+        assertTrue(latest.getEtag().matches("\"[A-Za-z0-9_-]{22}\""), latest.getEtag());
+    }
+
+    @Test
+    void matchesListedTags() {
+        String etag = latest.getEtag();
+        assertTrue(latest.matches(etag));
+        assertTrue(latest.matches("\"other\", " + etag));
+        assertTrue(latest.matches("\"other\",W/" + etag));
+        assertTrue(latest.matches("*"));
+    }
+
+    @Test
+    void rejectsPartialOrMissingTags() {
+        String etag = latest.getEtag();
+        String unquoted = etag.substring(1, etag.length() - 1);
+        assertFalse(latest.matches(null));
+        assertFalse(latest.matches(""));
+        assertFalse(latest.matches("\"other\""));
+        // 子串或不带引号的值不算匹配
+        assertFalse(latest.matches(unquoted));
+        assertFalse(latest.matches("\"x" + unquoted + "\""));
+        assertFalse(latest.matches("\"" + unquoted.substring(1) + "\""));
+    }
+}
@@ -0,0 +1,104 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.SegmentConfig;
+import com.att.audio.server.session.AudioSegment;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 默认配置（16kHz单声道，最短3s、最长30s、停顿600ms）下的切分点，以及分段时长配置的校验
+ */
+class SilenceSegmenterTest {
+    private static final int BYTES_PER_SECOND = 32000;
+    private static final int FRAME_SAMPLES = 320; // 20ms
+    private static final int PAUSE_FRAMES = 30; // 600ms
+
+    private final SilenceSegmenter segmenter = new SilenceSegmenter(audioConfig(), new SegmentConfig());
+
+    @Test
+    void cutsOnTrailingSilenceAfterMinimum() {
+        assertTrue(segmenter.shouldCut(segment(4 * BYTES_PER_SECOND), vad(PAUSE_FRAMES)));
+        assertFalse(segmenter.shouldCut(segment(4 * BYTES_PER_SECOND), vad(PAUSE_FRAMES - 1)));
+    }
+
+    @Test
+    void ignoresPausesBeforeMinimum() {
+        // 不足最短时长的分段遇到停顿也不切分，继续累积
+        assertFalse(segmenter.shouldCut(segment(3 * BYTES_PER_SECOND - 2), vad(10 * PAUSE_FRAMES)));
+        assertTrue(segmenter.shouldCut(segment(3 * BYTES_PER_SECOND), vad(PAUSE_FRAMES)));
+    }
+
+    @Test
+    void forcesCutAtMaximum() {
+        assertFalse(segmenter.shouldCut(segment(30 * BYTES_PER_SECOND - 2), vad(0)));
+        assertTrue(segmenter.shouldCut(segment(30 * BYTES_PER_SECOND), vad(0)));
+    }
+
+    @Test
+    void acceptsDefaultDurations() {
+        contextRunner().run(context -> assertNotNull(context.getBean(SegmentConfig.class)));
+    }
+
+    @Test
+    void rejectsMinimumAboveMaximum() {
+        contextRunner().withPropertyValues("audio.segment.min-duration-ms=5000", "audio.segment.max-duration-ms=4000")
+                .run(context -> assertRejected(context.getStartupFailure(), "minDurationMs"));
+    }
+
+    @Test
+    void rejectsNonPositiveDurations() {
+        contextRunner().withPropertyValues("audio.segment.min-duration-ms=0")
+                .run(context -> assertRejected(context.getStartupFailure(), "minDurationMs"));
+        contextRunner().withPropertyValues("audio.segment.max-duration-ms=-1")
+                .run(context -> assertRejected(context.getStartupFailure(), "maxDurationMs"));
+        contextRunner().withPropertyValues("audio.segment.pause-ms=0")
+                .run(context -> assertRejected(context.getStartupFailure(), "pauseMs"));
+    }
+
+    private static void assertRejected(Throwable failure, String field) {
+        assertNotNull(failure);
+        Throwable cause = failure;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertTrue(cause.getMessage().contains(field), cause.getMessage());
+    }
+
+    private static ApplicationContextRunner contextRunner() {
+        return new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+                .withUserConfiguration(SegmentConfig.class);
+    }
+
+    private static AudioSegment segment(long dataLength) {
+        AudioSegment segment = mock(AudioSegment.class);
+        when(segment.getDataLength()).thenReturn(dataLength);
+        return segment;
+    }
+
+    private static VoiceActivityDetector.Analyzer vad(int trailingSilenceFrames) {
+        VoiceActivityDetector.Analyzer vad = mock(VoiceActivityDetector.Analyzer.class);
+        when(vad.getTrailingSilenceFrames()).thenReturn(trailingSilenceFrames);
+        when(vad.getFrameSamples()).thenReturn(FRAME_SAMPLES);
+        return vad;
+    }
+
+    private static AudioConfig audioConfig() {
+        AudioConfig config = new AudioConfig();
+        config.setSampleRate(16000);
+        config.setBitsPerSample(16);
+        config.setChannels(1);
+        return config;
+    }
+}
@@ -0,0 +1,123 @@
+package com.att.audio.server.pipeline;
+
+import com.att.audio.server.config.TranscriptionConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 未能启动的异步转写任务必须调用清理回调，且只调用一次
+ */
+class TranscriptionExecutorTest {
+    private final List<String> rejected = new CopyOnWriteArrayList<>();
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> pending = new CompletableFuture<>();
+    private TranscriptionExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        pending.complete(null);
+        executor.shutdown();
+    }
+
+    @Test
+    void discardOldestRejectsPolledTask() throws InterruptedException {
+        executor = saturated(TranscriptionConfig.RejectionPolicy.DISCARD_OLDEST);
+        // 队列中是 c，d 提交时 c 被丢弃
+        assertTrue(submit("d"));
+        assertEquals(List.of("c"), rejected);
+
+        pending.complete(null);
+        awaitStarted("d");
+        assertEquals(List.of("c"), rejected);
+        assertFalse(started.contains("c"));
+    }
+
+    @Test
+    void abortRejectsNewTask() throws InterruptedException {
+        executor = saturated(TranscriptionConfig.RejectionPolicy.ABORT);
+        assertFalse(submit("d"));
+        assertEquals(List.of("d"), rejected);
+    }
+
+    @Test
+    void rejectsAfterShutdown() {
+        executor = new TranscriptionExecutor(config(TranscriptionConfig.RejectionPolicy.DISCARD_OLDEST));
+        executor.shutdown();
+        assertFalse(submit("a"));
+        assertEquals(List.of("a"), rejected);
+    }
+
+    @Test
+    void rejectsTaskThatFailsToStart() throws InterruptedException {
+        executor = new TranscriptionExecutor(config(TranscriptionConfig.RejectionPolicy.ABORT));
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(executor.submitAsync(() -> {
+            throw new IllegalStateException("boom");
+        }, cause -> {
+            assertInstanceOf(IllegalStateException.class, cause);
+            rejected.add("a");
+            done.countDown();
+        }));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("a"), rejected);
+        // 进行中任务的许可已归还
+        assertEquals(0, executor.getInFlightCount());
+    }
+
+    /**
+     * 一个工作线程、一个进行中任务、一个排队位置：a 进行中，b 在工作线程上等待许可，c 在队列中
+     */
+    private TranscriptionExecutor saturated(TranscriptionConfig.RejectionPolicy policy) throws InterruptedException {
+        TranscriptionExecutor executor = new TranscriptionExecutor(config(policy));
+        this.executor = executor;
+        assertTrue(submit("a"));
+        awaitStarted("a");
+        assertTrue(submit("b"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(submit("c"));
+        assertEquals(1, executor.getQueueDepth());
+        return executor;
+    }
+
+    private boolean submit(String name) {
+        return executor.submitAsync(() -> {
+            started.add(name);
+            return pending;
+        }, cause -> {
+            assertInstanceOf(RejectedExecutionException.class, cause);
+            rejected.add(name);
+        });
+    }
+
+    private void awaitStarted(String name) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!started.contains(name) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(started.contains(name), name + " 未启动");
+    }
+
+    private static TranscriptionConfig config(TranscriptionConfig.RejectionPolicy policy) {
+        TranscriptionConfig config = new TranscriptionConfig();
+        config.setConcurrency(1);
+        config.setMaxInFlight(1);
+        config.setQueueCapacity(1);
+        config.setRejectionPolicy(policy);
+        return config;
+    }
+}
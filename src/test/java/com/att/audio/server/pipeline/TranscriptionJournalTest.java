@@ -0,0 +1,203 @@
+package com.att.audio.server.pipeline;
+
+import com.alibaba.fastjson.JSON;
+import com.att.audio.server.config.AudioConfig;
+import com.att.audio.server.config.JournalConfig;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.ChunkPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 写入日志后重新打开，检查重放得到的未完成任务以及重写后保留的记录
+ */
+class TranscriptionJournalTest {
+    @TempDir
+    Path savePath;
+
+    private final ChunkPool pool = new ChunkPool(1024, 16);
+    private final List<TranscriptionJournal> opened = new ArrayList<>();
+    private JournalConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new JournalConfig();
+        config.setFlushWindow(Duration.ofMillis(5));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (TranscriptionJournal journal : opened) {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    void replaysPendingJobsWithLatestState() throws Exception {
+        TranscriptionJournal journal = open();
+        journal.start(segment(1));
+        TranscriptionJournal.Job uploaded = journal.start(segment(2));
+        uploaded.routed("xfyun");
+        uploaded.uploaded("https://upload/2");
+        TranscriptionJournal.Job created = journal.start(segment(3));
+        created.routed("xfyun");
+        created.uploaded("https://upload/3");
+        created.created("task-3");
+        journal.start(segment(4)).done();
+        journal.start(segment(5)).failed();
+        journal.shutdown();
+
+        Map<Long, TranscriptionJournal.Entry> pending = recovered(open());
+        assertEquals(List.of(1L, 2L, 3L), new ArrayList<>(pending.keySet()));
+        assertEquals(TranscriptionJournal.State.QUEUED, pending.get(1L).getState());
+        assertNull(pending.get(1L).getEngine());
+        assertEquals(TranscriptionJournal.State.UPLOADED, pending.get(2L).getState());
+        assertEquals("https://upload/2", pending.get(2L).getUrl());
+        assertEquals("xfyun", pending.get(2L).getEngine());
+        assertEquals(TranscriptionJournal.State.CREATED, pending.get(3L).getState());
+        assertEquals("https://upload/3", pending.get(3L).getUrl());
+        assertEquals("task-3", pending.get(3L).getTaskId());
+        assertEquals("session", pending.get(3L).getSession());
+    }
+
+    @Test
+    void skipsTornLastLine() throws Exception {
+        TranscriptionJournal journal = open();
+        journal.start(segment(1));
+        journal.start(segment(2)).uploaded("https://upload/2");
+        journal.shutdown();
+
+        // 模拟崩溃：最后一条 DONE 记录只写了一半
+        TranscriptionJournal.Entry done = new TranscriptionJournal.Entry();
+        done.setSeq(1);
+        done.setState(TranscriptionJournal.State.DONE);
+        String line = JSON.toJSONString(done);
+        Files.write(journalFile(), line.substring(0, line.length() / 2).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        Map<Long, TranscriptionJournal.Entry> pending = recovered(open());
+        assertEquals(List.of(1L, 2L), new ArrayList<>(pending.keySet()));
+        assertEquals(TranscriptionJournal.State.QUEUED, pending.get(1L).getState());
+        assertEquals(TranscriptionJournal.State.UPLOADED, pending.get(2L).getState());
+    }
+
+    @Test
+    void compactionKeepsOnlyLatestPendingLines() throws Exception {
+        config.setCompactBytes(1);
+        TranscriptionJournal journal = open();
+        for (int seq = 1; seq <= 20; seq++) {
+            TranscriptionJournal.Job job = journal.start(segment(seq));
+            job.uploaded("https://upload/" + seq);
+            if (seq % 2 == 0) {
+                job.done();
+            }
+        }
+        journal.shutdown();
+
+        // 每次落盘后都重写，文件中只剩未完成任务各自的最新一行
+        List<TranscriptionJournal.Entry> lines = lines();
+        assertEquals(10, lines.size());
+        for (TranscriptionJournal.Entry entry : lines) {
+            assertEquals(1, entry.getSeq() % 2);
+            assertEquals(TranscriptionJournal.State.UPLOADED, entry.getState());
+        }
+        assertEquals(10, recovered(open()).size());
+    }
+
+    @Test
+    void startupCompactionDropsFinishedJobs() throws Exception {
+        TranscriptionJournal journal = open();
+        journal.start(segment(1)).done();
+        journal.start(segment(2));
+        journal.shutdown();
+        assertEquals(3, lines().size());
+
+        open();
+        List<TranscriptionJournal.Entry> lines = lines();
+        assertEquals(1, lines.size());
+        assertEquals(2, lines.get(0).getSeq());
+    }
+
+    @Test
+    void failedCompactionKeepsAppending() throws Exception {
+        config.setCompactBytes(1);
+        // 临时文件的位置被目录占用，每次重写都失败
+        Files.createDirectories(journalFile().resolveSibling("jobs.log.tmp"));
+        TranscriptionJournal journal = open();
+        journal.start(segment(1));
+        journal.start(segment(2)).done();
+        journal.start(segment(3)).uploaded("https://upload/3");
+        journal.shutdown();
+
+        assertEquals(0L, journal.getStats().get("failed"));
+        assertEquals(5, lines().size());
+        Map<Long, TranscriptionJournal.Entry> pending = recovered(open());
+        assertEquals(List.of(1L, 3L), new ArrayList<>(pending.keySet()));
+        assertEquals(TranscriptionJournal.State.UPLOADED, pending.get(3L).getState());
+    }
+
+    @Test
+    void groupsAppendsIntoFewerFlushes() throws Exception {
+        config.setFlushWindow(Duration.ofMillis(200));
+        TranscriptionJournal journal = open();
+        for (int seq = 1; seq <= 100; seq++) {
+            journal.start(segment(seq));
+        }
+        journal.shutdown();
+
+        Map<String, Object> stats = journal.getStats();
+        assertEquals(100L, stats.get("appends"));
+        assertTrue((Long) stats.get("flushes") < 10, "落盘次数：" + stats.get("flushes"));
+        assertEquals(100, recovered(open()).size());
+    }
+
+    private TranscriptionJournal open() throws IOException {
+        AudioConfig audioConfig = new AudioConfig();
+        audioConfig.setSavePath(savePath.toString());
+        TranscriptionJournal journal = new TranscriptionJournal(audioConfig, config);
+        opened.add(journal);
+        return journal;
+    }
+
+    private AudioSegment segment(long seq) {
+        return new AudioSegment("audio_session_" + seq + ".wav", "session", seq, System.currentTimeMillis(),
+                16000, 16, 1, pool);
+    }
+
+    private Path journalFile() {
+        return savePath.resolve("journal").resolve("jobs.log");
+    }
+
+    private List<TranscriptionJournal.Entry> lines() throws IOException {
+        return Files.readAllLines(journalFile(), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.isEmpty())
+                .map(line -> JSON.parseObject(line, TranscriptionJournal.Entry.class))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<Long, TranscriptionJournal.Entry> recovered(TranscriptionJournal journal) {
+        Map<Long, TranscriptionJournal.Entry> pending = new TreeMap<>();
+        for (TranscriptionJournal.Job job : journal.takeRecovered()) {
+            pending.put(job.getEntry().getSeq(), job.getEntry());
+        }
+        return pending;
+    }
+}
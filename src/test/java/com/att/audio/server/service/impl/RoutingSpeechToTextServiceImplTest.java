@@ -0,0 +1,157 @@
+package com.att.audio.server.service.impl;
+
+import com.att.audio.server.config.SpeechRouterConfig;
+import com.att.audio.server.pipeline.LatestTranscriptionCache;
+import com.att.audio.server.pipeline.TranscriptionCache;
+import com.att.audio.server.pipeline.TranscriptionResultWriter;
+import com.att.audio.server.service.SpeechEngine;
+import com.att.audio.server.service.TranscriptionProgress;
+import com.att.audio.server.session.AudioSegment;
+import com.att.audio.server.util.XfyunApiException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 路由按配置顺序选择可用引擎，在任务创建前遇到可重试的错误时切换引擎，缓存命中时不调用任何引擎
+ */
+class RoutingSpeechToTextServiceImplTest {
+    private final TranscriptionCache cache = mock(TranscriptionCache.class);
+    private final AudioSegment segment = mock(AudioSegment.class);
+    private SpeechEngine primary;
+    private SpeechEngine secondary;
+
+    @BeforeEach
+    void setUp() {
+        primary = engine("primary");
+        secondary = engine("secondary");
+        when(segment.getContentHash()).thenReturn("hash");
+        when(segment.getName()).thenReturn("segment.wav");
+    }
+
+    @Test
+    void routesByConfiguredOrderNotRegistrationOrder() throws Exception {
+        when(primary.transcribe(any(AudioSegment.class), any())).thenReturn(CompletableFuture.completedFuture("p"));
+        RoutingSpeechToTextServiceImpl router = router(Arrays.asList(secondary, primary), "primary", "secondary");
+
+        assertEquals("p", transcribe(router, TranscriptionProgress.NONE));
+        verify(secondary, never()).transcribe(any(AudioSegment.class), any());
+        verify(cache).put("hash", "p");
+    }
+
+    @Test
+    void skipsUnhealthyEngine() throws Exception {
+        when(primary.isHealthy()).thenReturn(false);
+        when(secondary.transcribe(any(AudioSegment.class), any())).thenReturn(CompletableFuture.completedFuture("s"));
+
+        assertEquals("s", transcribe(router(Arrays.asList(primary, secondary), "primary", "secondary"),
+                TranscriptionProgress.NONE));
+        verify(primary, never()).transcribe(any(AudioSegment.class), any());
+    }
+
+    @Test
+    void failsOverOnRetryableError() throws Exception {
+        when(primary.transcribe(any(AudioSegment.class), any())).thenReturn(CompletableFuture.failedFuture(
+                new XfyunApiException("上游不可用", 503, 0, null, true)));
+        when(secondary.transcribe(any(AudioSegment.class), any())).thenReturn(CompletableFuture.completedFuture("s"));
+        RecordingProgress progress = new RecordingProgress();
+
+        assertEquals("s", transcribe(router(Arrays.asList(primary, secondary), "primary", "secondary"), progress));
+        assertEquals(Arrays.asList("primary", "secondary"), progress.routed);
+    }
+
+    @Test
+    void doesNotFailOverOnNonRetryableError() {
+        XfyunApiException failure = new XfyunApiException("签名错误", 401, 0, null, false);
+        when(primary.transcribe(any(AudioSegment.class), any())).thenReturn(CompletableFuture.failedFuture(failure));
+        RoutingSpeechToTextServiceImpl router = router(Arrays.asList(primary, secondary), "primary", "secondary");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> transcribe(router, TranscriptionProgress.NONE));
+        assertSame(failure, XfyunApiException.unwrap(e));
+        verify(secondary, never()).transcribe(any(AudioSegment.class), any());
+    }
+
+    @Test
+    void doesNotFailOverAfterTaskCreated() {
+        when(primary.transcribe(any(AudioSegment.class), any())).thenAnswer(invocation -> {
+            // 任务已在该引擎创建，切换引擎会重复转写
+            invocation.<TranscriptionProgress>getArgument(1).created("task-1");
+            return CompletableFuture.failedFuture(new XfyunApiException("查询失败", 503, 0, null, true));
+        });
+        RoutingSpeechToTextServiceImpl router = router(Arrays.asList(primary, secondary), "primary", "secondary");
+
+        assertThrows(ExecutionException.class, () -> transcribe(router, TranscriptionProgress.NONE));
+        verify(secondary, never()).transcribe(any(AudioSegment.class), any());
+    }
+
+    @Test
+    void cacheHitSkipsEngines() throws Exception {
+        when(cache.get("hash")).thenReturn("cached");
+        RoutingSpeechToTextServiceImpl router = router(Arrays.asList(primary, secondary), "primary", "secondary");
+
+        assertEquals("cached", transcribe(router, TranscriptionProgress.NONE));
+        verify(primary, never()).transcribe(any(AudioSegment.class), any());
+        verify(secondary, never()).transcribe(any(AudioSegment.class), any());
+        verify(cache, never()).put(any(), any());
+    }
+
+    @Test
+    void rejectsUnregisteredEngine() {
+        // 未开启 stub 时不注册 stub 引擎，配置中列出它应启动失败而不是指向不存在的接口
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> router(Collections.singletonList(primary), "primary", "stub"));
+        assertTrue(e.getMessage().contains("stub"));
+    }
+
+    @Test
+    void rejectsDuplicateEngineNames() {
+        assertThrows(IllegalStateException.class,
+                () -> router(Arrays.asList(primary, engine("primary")), "primary"));
+    }
+
+    private String transcribe(RoutingSpeechToTextServiceImpl router, TranscriptionProgress progress)
+            throws Exception {
+        return router.convertToTextAsync(segment, progress).get(5, TimeUnit.SECONDS);
+    }
+
+    private RoutingSpeechToTextServiceImpl router(List<SpeechEngine> engines, String... configured) {
+        SpeechRouterConfig config = new SpeechRouterConfig();
+        config.setEngines(Arrays.asList(configured));
+        return new RoutingSpeechToTextServiceImpl(engines, config, mock(TranscriptionResultWriter.class), cache,
+                mock(LatestTranscriptionCache.class));
+    }
+
+    private static SpeechEngine engine(String name) {
+        SpeechEngine engine = mock(SpeechEngine.class);
+        when(engine.getName()).thenReturn(name);
+        when(engine.isHealthy()).thenReturn(true);
+        when(engine.getStats()).thenReturn(Collections.emptyMap());
+        return engine;
+    }
+
+    private static final class RecordingProgress implements TranscriptionProgress {
+        private final List<String> routed = new ArrayList<>();
+
+        @Override
+        public void routed(String engine) {
+            routed.add(engine);
+        }
+    }
+}
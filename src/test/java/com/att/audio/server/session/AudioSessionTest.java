@@ -0,0 +1,53 @@
+package com.att.audio.server.session;
+
+import com.att.audio.server.archive.SegmentStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 会话ID规范化：合法ID原样保留，其余ID不会因替换或截断与其他ID合并，结果始终可用于分段文件名
+ */
+class AudioSessionTest {
+    private static final String LONG_PREFIX = "x".repeat(64);
+
+    @Test
+    void keepsSafeIds() {
+        assertEquals("device-01", AudioSession.normalizeId("device-01"));
+        assertEquals("device-01", AudioSession.normalizeId("  device-01 "));
+        assertEquals(LONG_PREFIX, AudioSession.normalizeId(LONG_PREFIX));
+        assertEquals(AudioSession.DEFAULT_ID, AudioSession.normalizeId(null));
+        assertEquals(AudioSession.DEFAULT_ID, AudioSession.normalizeId(" "));
+    }
+
+    @Test
+    void distinctIdsStayDistinct() {
+        List<String> rawIds = Arrays.asList("a.b", "a_b", "a-b", "a b", "设备1", "设备2",
+                LONG_PREFIX + "1", LONG_PREFIX + "2");
+        Set<String> normalized = new HashSet<>();
+        for (String rawId : rawIds) {
+            normalized.add(AudioSession.normalizeId(rawId));
+        }
+        assertEquals(rawIds.size(), normalized.size(), normalized.toString());
+        assertNotEquals(AudioSession.normalizeId("a.b"), AudioSession.normalizeId("a_b"));
+    }
+
+    @Test
+    void normalizedIdsAreStableAndFileNameSafe() {
+        for (String rawId : Arrays.asList("a.b", "../etc/passwd", "设备1", LONG_PREFIX + LONG_PREFIX, "x".repeat(65))) {
+            String id = AudioSession.normalizeId(rawId);
+            assertEquals(id, AudioSession.normalizeId(rawId));
+            assertTrue(id.matches("[A-Za-z0-9-]{1,64}"), id);
+            // 归档索引和分段文件名都能容纳规范化后的ID
+            String name = SegmentStore.segmentName(id, 0, 1);
+            assertTrue(name.startsWith("audio_" + id + "_"), name);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.att.audio.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 编码后解码必须与原始PCM逐字节一致
+ */
+class LosslessCodecTest {
+    private static final int SAMPLE_RATE = 16000;
+    private static final int BLOCK_FRAMES = 4096;
+
+    @Test
+    void speechMono() throws IOException {
+        assertRoundTrip(speech(SAMPLE_RATE * 3, 1), 1);
+    }
+
+    @Test
+    void oddLength() throws IOException {
+        // 末尾不足一帧的字节原样保存
+        byte[] pcm = speech(BLOCK_FRAMES + 100, 1);
+        assertRoundTrip(Arrays.copyOf(pcm, pcm.length - 1), 1);
+        assertRoundTrip(new byte[]{42}, 1);
+    }
+
+    @Test
+    void multiChannel() throws IOException {
+        assertRoundTrip(speech(BLOCK_FRAMES * 2 + 300, 2), 2);
+        byte[] sixChannels = whiteNoise((BLOCK_FRAMES + 7) * 6, 3);
+        // 最后一帧只有部分声道
+        assertRoundTrip(Arrays.copyOf(sixChannels, sixChannels.length + 5), 6);
+    }
+
+    @Test
+    void blocksShorterThanLpcWindow() throws IOException {
+        // 短于 LPC_ORDER*4 帧的块只能使用固定阶预测
+        for (int frames = 0; frames <= 40; frames++) {
+            assertRoundTrip(speech(frames, 1), 1);
+        }
+        // 整块之后只剩一个很短的尾块
+        assertRoundTrip(speech(BLOCK_FRAMES + 20, 1), 1);
+        assertRoundTrip(speech(BLOCK_FRAMES + 20, 2), 2);
+    }
+
+    @Test
+    void silence() throws IOException {
+        assertRoundTrip(new byte[SAMPLE_RATE * 2], 1);
+        assertRoundTrip(new byte[(BLOCK_FRAMES + 1) * 4], 2);
+    }
+
+    @Test
+    void whiteNoise() throws IOException {
+        assertRoundTrip(whiteNoise(SAMPLE_RATE * 2 * 2, 1), 1);
+        assertRoundTrip(whiteNoise(BLOCK_FRAMES * 4 * 2 + 2, 2), 2);
+    }
+
+    @Test
+    void fullScale() throws IOException {
+        // 相邻采样在正负满幅之间跳变，残差接近 16 位范围的两倍
+        byte[] pcm = new byte[BLOCK_FRAMES * 2];
+        for (int i = 0; i < BLOCK_FRAMES; i++) {
+            short sample = i % 2 == 0 ? Short.MAX_VALUE : Short.MIN_VALUE;
+            pcm[2 * i] = (byte) sample;
+            pcm[2 * i + 1] = (byte) (sample >> 8);
+        }
+        assertRoundTrip(pcm, 1);
+    }
+
+    private static void assertRoundTrip(byte[] pcm, int channels) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (LosslessCodec.Encoder encoder = LosslessCodec.newEncoder(encoded, SAMPLE_RATE, 16, channels, pcm.length)) {
+            // 分多次写入，覆盖跨块边界的写入
+            int offset = 0;
+            int step = 1000;
+            while (offset < pcm.length) {
+                int n = Math.min(step, pcm.length - offset);
+                encoder.write(pcm, offset, n);
+                offset += n;
+                step = step * 3 + 1;
+            }
+        }
+        ByteArrayOutputStream wav = new ByteArrayOutputStream();
+        long decoded = LosslessCodec.decodeToWav(new ByteArrayInputStream(encoded.toByteArray()), wav);
+        assertEquals(pcm.length, decoded);
+        byte[] bytes = wav.toByteArray();
+        assertArrayEquals(WavUtil.createWavHeader(pcm.length, SAMPLE_RATE, 16, channels),
+                Arrays.copyOf(bytes, WavUtil.HEADER_SIZE));
+        assertArrayEquals(pcm, Arrays.copyOfRange(bytes, WavUtil.HEADER_SIZE, bytes.length),
+                "声道数 " + channels + "，长度 " + pcm.length);
+    }
+
+    /**
+     * 有声段与静音交替的合成语音，各声道相位不同
+     */
+    private static byte[] speech(int frames, int channels) {
+        Random random = new Random(frames * 31L + channels);
+        byte[] pcm = new byte[frames * channels * 2];
+        for (int i = 0; i < frames; i++) {
+            boolean voiced = (i / 1600) % 5 < 3;
+            for (int c = 0; c < channels; c++) {
+                double value = random.nextGaussian() * 60;
+                if (voiced) {
+                    value += 6000 * Math.sin(2 * Math.PI * 220 * i / SAMPLE_RATE + c)
+                            + 2500 * Math.sin(2 * Math.PI * 660 * i / SAMPLE_RATE);
+                }
+                short sample = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+                int index = (i * channels + c) * 2;
+                pcm[index] = (byte) sample;
+                pcm[index + 1] = (byte) (sample >> 8);
+            }
+        }
+        return pcm;
+    }
+
+    private static byte[] whiteNoise(int length, long seed) {
+        byte[] pcm = new byte[length];
+        new Random(seed).nextBytes(pcm);
+        return pcm;
+    }
+}
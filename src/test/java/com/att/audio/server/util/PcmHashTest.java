@@ -0,0 +1,62 @@
+package com.att.audio.server.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * 摘要为 SHA-256 的前128位，与分块方式无关，WAV 文件只计算文件头之后的PCM数据
+ */
+class PcmHashTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesTruncatedSha256() {
+        byte[] data = "abc".getBytes(StandardCharsets.US_ASCII);
+        assertEquals("ba7816bf8f01cfea414140de5dae2223", new PcmHash().update(data, 0, data.length).digest());
+    }
+
+    @Test
+    void independentOfChunking() {
+        byte[] pcm = pcm(10_000, 1);
+        PcmHash chunked = new PcmHash();
+        for (int offset = 0; offset < pcm.length; offset += 777) {
+            chunked.update(pcm, offset, Math.min(777, pcm.length - offset));
+        }
+        assertEquals(new PcmHash().update(pcm, 0, pcm.length).digest(), chunked.digest());
+    }
+
+    @Test
+    void distinguishesContentOfSameLength() {
+        byte[] first = pcm(4096, 1);
+        byte[] second = first.clone();
+        second[2048] ^= 1;
+        assertNotEquals(new PcmHash().update(first, 0, first.length).digest(),
+                new PcmHash().update(second, 0, second.length).digest());
+    }
+
+    @Test
+    void wavFileHashesPcmOnly() throws IOException {
+        byte[] pcm = pcm(200_000, 2);
+        Path wav = directory.resolve("segment.wav");
+        Files.write(wav, WavUtil.createWavHeader(pcm.length, 16000, 16, 1));
+        Files.write(wav, pcm, StandardOpenOption.APPEND);
+        assertEquals(new PcmHash().update(pcm, 0, pcm.length).digest(), PcmHash.ofWavFile(wav));
+    }
+
+    private static byte[] pcm(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,120 @@
+package com.att.audio.server.util;
+
+import com.alibaba.fastjson.JSON;
+import com.att.audio.server.request.FileReq;
+import com.att.audio.server.request.OpenReq;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FileCaller 与 OpenCaller 经同一套签名、调用和解析：成功响应解析为对象，其余情况转为 XfyunApiException
+ * 响应由拦截器直接返回，不发出网络请求
+ */
+class XfyunHttpTest {
+    private static final MediaType APPLICATION_JSON = MediaType.parse("application/json");
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicReference<Request> lastRequest = new AtomicReference<>();
+
+    @Test
+    void parsesSuccessfulResponses() throws Exception {
+        OkHttpClient client = client(200, "{\"code\":0,\"sid\":\"s1\",\"data\":{\"task_id\":\"t1\"}}");
+        OpenResp<OpenResp.CreateData> created = openCaller(client, null).createAsync(OpenReq.Create.builder().build())
+                .get(5, TimeUnit.SECONDS);
+        // data 按擦除后的类型解析为 JSONObject，调用方再按字段读取
+        assertEquals("t1", JSON.parseObject(JSON.toJSONString(created.getData())).getString("task_id"));
+        assertEquals("s1", created.getSid());
+
+        Request request = lastRequest.get();
+        assertEquals("http://xfyun.test/v2/ost/pro_create", request.url().toString());
+        assertNotNull(request.header("Authorization"));
+        assertNotNull(request.header("Digest"));
+
+        client = client(200, "{\"code\":0,\"data\":{\"upload_id\":\"u1\"}}");
+        FileResp<FileResp.InitData> init = fileCaller(client, null).fileInit(FileReq.Init.builder().build());
+        assertEquals("u1", JSON.parseObject(JSON.toJSONString(init.getData())).getString("upload_id"));
+        assertEquals("http://xfyun.test/file/mpupload/init", lastRequest.get().url().toString());
+    }
+
+    @Test
+    void serverErrorsAreRetryable() {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> openCaller(
+                client(503, "<html>Service Unavailable</html>"), null)
+                .queryAsync(OpenReq.Query.builder().build()).get(5, TimeUnit.SECONDS));
+        XfyunApiException cause = (XfyunApiException) XfyunApiException.unwrap(e);
+        assertEquals(503, cause.getHttpStatus());
+        assertEquals(-1, cause.getCode());
+        assertTrue(cause.isRetryable());
+    }
+
+    @Test
+    void businessErrorsAreNotRetryable() {
+        XfyunApiException e = assertThrows(XfyunApiException.class, () -> fileCaller(
+                client(200, "{\"code\":10105,\"sid\":\"s2\",\"message\":\"illegal access\"}"), null)
+                .fileUploadComplete(FileReq.Complete.builder().build()));
+        assertEquals(10105, e.getCode());
+        assertEquals("s2", e.getSid());
+        assertFalse(e.isRetryable());
+    }
+
+    @Test
+    void networkFailuresAreRetryable() {
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(chain -> {
+            calls.incrementAndGet();
+            throw new IOException("connection reset");
+        }).build();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> fileCaller(client, null)
+                .fileInitAsync(FileReq.Init.builder().build()).get(5, TimeUnit.SECONDS));
+        assertTrue(XfyunApiException.isRetryable(e));
+        assertTrue(XfyunApiException.unwrap(e).getCause() instanceof IOException);
+    }
+
+    @Test
+    void expiredDeadlineFailsWithoutCalling() throws InterruptedException {
+        Deadline deadline = Deadline.after(1);
+        Thread.sleep(10);
+        OkHttpClient client = client(200, "{\"code\":0}");
+        assertThrows(XfyunApiException.class, () -> openCaller(client, deadline).cancel(OpenReq.Cancel.builder().build()));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> fileCaller(client, deadline)
+                .fileCancelAsync(FileReq.Cancel.builder().build()).get(5, TimeUnit.SECONDS));
+        assertFalse(XfyunApiException.isRetryable(e));
+        assertEquals(0, calls.get());
+    }
+
+    private OkHttpClient client(int status, String body) {
+        return new OkHttpClient.Builder().addInterceptor(chain -> {
+            calls.incrementAndGet();
+            lastRequest.set(chain.request());
+            return new Response.Builder().request(chain.request()).protocol(Protocol.HTTP_1_1)
+                    .code(status).message(status == 200 ? "OK" : "Service Unavailable")
+                    .body(ResponseBody.create(APPLICATION_JSON, body)).build();
+        }).build();
+    }
+
+    private static FileCaller fileCaller(OkHttpClient client, Deadline deadline) {
+        return FileCaller.builder().ulrPrefix("http://xfyun.test/file").apiKey("key").apiSecret("secret")
+                .client(client).deadline(deadline).build();
+    }
+
+    private static OpenCaller openCaller(OkHttpClient client, Deadline deadline) {
+        return OpenCaller.builder().ulrPrefix("http://xfyun.test/v2").apiKey("key").apiSecret("secret")
+                .client(client).deadline(deadline).build();
+    }
+}